@@ -1,88 +1,242 @@
 package application;
 
-import java.util.NavigableMap;
-import java.util.NavigableSet;
-//import java.util.concurrent.ConcurrentSkipListMap;
-import ua.shevchuk.concurrent.ConcurrentSkipListSet;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
 import ua.shevchuk.concurrent.ConcurrentSkipListMap;
 
-public class Application<K, V> {
-
-	public static void main(String[] args) {
-		NavigableSet<Integer> set1 = new ConcurrentSkipListSet<>();
-		set1.add(1);
-		set1.add(5);
-		set1.add(3);
-		set1.add(2);
-		set1.add(4);
-		ConcurrentSkipListMap<Integer, Integer> map1 = new ConcurrentSkipListMap<>();
-		NavigableSet<Integer> set2 = map1.keySet();
-		//NavigableSet<Integer> set2 = set1.tailSet(8, true).descendingSet();
-		//NavigableSet<Integer> set3 = ((ConcurrentSkipListSet<Integer>) set2).clone();
-		//System.out.println(set1.size());
-		//System.out.println(set2.size());
-		//System.out.println(set2.isEmpty());
-
-		
-		
-/*
-		ConcurrentSkipListSet<Integer> set1 = new ConcurrentSkipListSet<>();
-		set1.add(1);
-		set1.add(2);
-		set1.add(3);
-		ConcurrentSkipListSet<Integer> set2 = ((ConcurrentSkipListSet<Integer>) set1.subSet(2, false, 3, false));
-		ConcurrentSkipListSet<Integer> set3 = ((ConcurrentSkipListSet<Integer>) set2.headSet(2, true));
-		System.out.println(set3);
-*/
-/*
-		try {
-			ByteArrayOutputStream bos = new ByteArrayOutputStream();
-			ObjectOutputStream oos = new ObjectOutputStream(bos);
-			oos.writeObject(set2);
-			byte[] ba = bos.toByteArray();
-			System.out.println(bos.size());
-			ByteArrayInputStream bis = new ByteArrayInputStream(ba);
-			ObjectInputStream ois = new ObjectInputStream(bis);
-			try {
-				@SuppressWarnings("unchecked")
-				ConcurrentSkipListSet<Integer> set3 = (ConcurrentSkipListSet<Integer>) ois.readObject();
-				set1.remove(2);
-				//System.out.println(set3.add(4));
-			} catch (ClassNotFoundException e) {
-				// TODO Auto-generated catch block
-				e.printStackTrace();
+public class Application {
+
+	private static final int SCAN_LENGTH = 100;
+	private static final int DEFAULT_VIRTUAL_THREADS = 4096;
+	private static final int RECORDERS_PER_PROCESSOR = 4;
+	private static final double ZIPFIAN_CONSTANT = 0.99;
+
+	private static volatile long blackhole;
+
+	private enum Operation {
+		READ, SCAN, INSERT, DELETE, POLL
+	}
+
+	private enum Workload {
+
+		A(50, 0, 50, 0, 0),
+		B(95, 0, 5, 0, 0),
+		C(100, 0, 0, 0, 0),
+		E(0, 95, 5, 0, 0),
+		Q(0, 0, 50, 0, 50),
+		M(60, 10, 15, 10, 5);
+
+		private final int[] percentages;
+
+		private Workload(int... percentages) {
+			this.percentages = percentages;
+		}
+
+		public Operation next(int percent) {
+			for (int index = 0; index < percentages.length; index++) {
+				percent -= percentages[index];
+				if (percent < 0) {
+					return Operation.values()[index];
+				}
+			}
+			return Operation.READ;
+		}
+
+	}
+
+	public static void main(String[] args) throws InterruptedException {
+		Workload workload = (args.length > 0) ? Workload.valueOf(args[0].toUpperCase()) : Workload.M;
+		long seconds = (args.length > 1) ? Long.parseLong(args[1]) : 5;
+		int keyCount = (args.length > 2) ? Integer.parseInt(args[2]) : 1 << 20;
+		int virtualThreads = (args.length > 3) ? Integer.parseInt(args[3]) : DEFAULT_VIRTUAL_THREADS;
+		if ((seconds <= 0) || (keyCount <= 0) || (virtualThreads <= 0)) {
+			throw new IllegalArgumentException();
+		}
+		Zipfian zipfian = new Zipfian(keyCount);
+
+		System.out.println("workload " + workload + ", " + seconds + "s per run, " + keyCount + " keys");
+		int processors = Runtime.getRuntime().availableProcessors();
+		for (int threads = 1; ; threads = Math.min(threads * 2, processors)) {
+			run(workload, zipfian, seconds, threads, false);
+			if (threads == processors) {
+				break;
+			}
+		}
+		if (virtualThreadBuilder() == null) {
+			System.out.println("virtual threads are not available on this runtime");
+		} else {
+			run(workload, zipfian, seconds, virtualThreads, true);
+		}
+	}
+
+	private static void run(Workload workload, Zipfian zipfian, long seconds, int threads, boolean virtual)
+			throws InterruptedException {
+		ConcurrentSkipListMap<Long, Long> map = new ConcurrentSkipListMap<>();
+		for (long key = 0; key < zipfian.count; key++) {
+			map.put(key, key);
+		}
+
+		int recorders = Math.min(threads, RECORDERS_PER_PROCESSOR * Runtime.getRuntime().availableProcessors());
+		Histogram[][] histograms = new Histogram[recorders][Operation.values().length];
+		for (Histogram[] recorderHistograms : histograms) {
+			for (int operation = 0; operation < recorderHistograms.length; operation++) {
+				recorderHistograms[operation] = new Histogram();
+			}
+		}
+		CountDownLatch startLatch = new CountDownLatch(1);
+		CountDownLatch doneLatch = new CountDownLatch(threads);
+		long[] deadline = new long[1];
+		List<Thread> workers = new ArrayList<>(threads);
+		for (int thread = 0; thread < threads; thread++) {
+			Histogram[] threadHistograms = histograms[thread % recorders];
+			Runnable worker = () -> {
+				try {
+					startLatch.await();
+					work(map, workload, zipfian, deadline[0], threadHistograms);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				} finally {
+					doneLatch.countDown();
+				}
+			};
+			workers.add(virtual ? newVirtualThread(worker) : new Thread(worker));
+		}
+		for (Thread worker : workers) {
+			worker.start();
+		}
+		long startTime = System.nanoTime();
+		deadline[0] = startTime + TimeUnit.SECONDS.toNanos(seconds);
+		startLatch.countDown();
+		doneLatch.await();
+		long elapsedTime = System.nanoTime() - startTime;
+
+		Histogram[] totals = new Histogram[Operation.values().length];
+		long totalCount = 0;
+		for (int operation = 0; operation < totals.length; operation++) {
+			totals[operation] = new Histogram();
+			for (int recorder = 0; recorder < recorders; recorder++) {
+				totals[operation].add(histograms[recorder][operation]);
+			}
+			totalCount += totals[operation].getTotalCount();
+		}
+		System.out.printf("%n%s threads %d: %,.0f ops/s%n", virtual ? "virtual" : "platform", threads
+				, totalCount * 1e9 / elapsedTime);
+		System.out.printf("  %-8s %12s %10s %10s %10s %10s%n", "op", "count", "p50 us", "p99 us", "p99.9 us", "max us");
+		for (Operation operation : Operation.values()) {
+			Histogram histogram = totals[operation.ordinal()];
+			if (histogram.getTotalCount() > 0) {
+				System.out.printf("  %-8s %12d %10.2f %10.2f %10.2f %10.2f%n", operation, histogram.getTotalCount()
+						, histogram.getValueAtPercentile(50) / 1e3, histogram.getValueAtPercentile(99) / 1e3
+						, histogram.getValueAtPercentile(99.9) / 1e3, histogram.getMaximumValue() / 1e3);
+			}
+		}
+	}
+
+	private static void work(ConcurrentSkipListMap<Long, Long> map, Workload workload, Zipfian zipfian
+			, long deadline, Histogram[] histograms) {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		long sink = 0;
+		long time = System.nanoTime();
+		while (time < deadline) {
+			Operation operation = workload.next(random.nextInt(100));
+			long key = zipfian.next(random);
+			switch (operation) {
+			case READ:
+				Long value = map.get(key);
+				sink += (value == null) ? 0 : value;
+				break;
+			case SCAN:
+				for (Map.Entry<Long, Long> entry : map.subMap(key, key + SCAN_LENGTH).entrySet()) {
+					sink += entry.getValue();
+				}
+				break;
+			case INSERT:
+				map.put(key, key);
+				break;
+			case DELETE:
+				map.remove(key);
+				break;
+			case POLL:
+				Map.Entry<Long, Long> entry = map.pollFirstEntry();
+				if (entry != null) {
+					map.put(zipfian.count - 1 - random.nextLong(zipfian.count >>> 4 | 1), entry.getValue());
+				}
+				break;
 			}
-		} catch (IOException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
+			long endTime = System.nanoTime();
+			histograms[operation.ordinal()].record(endTime - time);
+			time = endTime;
 		}
+		blackhole = sink;
+	}
+
+	private static Object virtualThreadBuilder() {
+		try {
+			return Thread.class.getMethod("ofVirtual").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return null;
+		}
+	}
 
-		ConcurrentSkipListMap<Integer, Integer> map1 = new ConcurrentSkipListMap<>();
-		map1.put(1, 1);
-		map1.put(2, 2);
-		map1.put(3, 3);
-		//map1.entrySet().clone();
+	private static Thread newVirtualThread(Runnable task) {
 		try {
-			ByteArrayOutputStream bos = new ByteArrayOutputStream();
-			ObjectOutputStream oos = new ObjectOutputStream(bos);
-			oos.writeObject(map1.entrySet());
-			byte[] ba = bos.toByteArray();
-			System.out.println(bos.size());
-			ByteArrayInputStream bis = new ByteArrayInputStream(ba);
-			ObjectInputStream ois = new ObjectInputStream(bis);
-			try {
-				@SuppressWarnings("unchecked")
-				ConcurrentSkipListSet<Integer> set3 = (ConcurrentSkipListSet<Integer>) ois.readObject();
-				set1.remove(2);
-				System.out.println(set3.add(4));
-			} catch (ClassNotFoundException e) {
-				// TODO Auto-generated catch block
-				e.printStackTrace();
+			Object builder = virtualThreadBuilder();
+			Method unstarted = Class.forName("java.lang.Thread$Builder").getMethod("unstarted", Runnable.class);
+			return (Thread) unstarted.invoke(builder, task);
+		} catch (ReflectiveOperationException e) {
+			throw new UnsupportedOperationException(e);
+		}
+	}
+
+	private static class Zipfian {
+
+		private final long count;
+		private final double theta;
+		private final double alpha;
+		private final double zeta;
+		private final double eta;
+
+		public Zipfian(long count) {
+			this.count = count;
+			theta = ZIPFIAN_CONSTANT;
+			alpha = 1 / (1 - theta);
+			zeta = zeta(count);
+			eta = (1 - Math.pow(2.0 / count, 1 - theta)) / (1 - zeta(2) / zeta);
+		}
+
+		public long next(ThreadLocalRandom random) {
+			double u = random.nextDouble();
+			double uz = u * zeta;
+			long rank;
+			if (uz < 1) {
+				rank = 0;
+			} else if (uz < 1 + Math.pow(0.5, theta)) {
+				rank = 1;
+			} else {
+				rank = (long) (count * Math.pow(eta * u - eta + 1, alpha));
 			}
-		} catch (IOException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
+			return Math.floorMod(scramble(Math.min(rank, count - 1)), count);
 		}
-*/
+
+		private double zeta(long n) {
+			double sum = 0;
+			for (long i = 1; i <= n; i++) {
+				sum += 1 / Math.pow(i, theta);
+			}
+			return sum;
+		}
+
+		private static long scramble(long rank) {
+			long hash = rank * 0x9e3779b97f4a7c15L;
+			return hash ^ (hash >>> 29);
+		}
+
 	}
+
 }
@@ -0,0 +1,254 @@
+package application;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+import ua.shevchuk.concurrent.ConcurrentSkipListMap;
+import ua.shevchuk.concurrent.ConcurrentSkipListSet;
+
+public class Differential {
+
+	private static final int MAP_OPERATIONS = 22;
+	private static final int SET_OPERATIONS = 12;
+	private static final int LISTING_PERIOD = 64;
+	private static final int POLLING_PERIOD = 16;
+	private static final int BATCH_SIZE = 8;
+
+	public static void main(String[] args) {
+		int operations = (args.length > 0) ? Integer.parseInt(args[0]) : 1000000;
+		int keyCount = (args.length > 1) ? Integer.parseInt(args[1]) : 1024;
+		long seed = (args.length > 2) ? Long.parseLong(args[2]) : System.nanoTime();
+		if ((operations <= 0) || (keyCount <= 0)) {
+			throw new IllegalArgumentException();
+		}
+		System.out.println("seed " + seed);
+		checkMap(new Random(seed), operations, keyCount);
+		checkSet(new Random(seed), operations, keyCount);
+	}
+
+	private static void checkMap(Random random, int operations, int keyCount) {
+		ConcurrentSkipListMap<Long, Long> map = new ConcurrentSkipListMap<>();
+		TreeMap<Long, Long> model = new TreeMap<>();
+		for (int operation = 1; operation <= operations; operation++) {
+			int view = random.nextInt(8);
+			long bound1 = random.nextInt(keyCount + 4) - 2;
+			long bound2 = random.nextInt(keyCount + 4) - 2;
+			boolean inclusive1 = random.nextBoolean();
+			boolean inclusive2 = random.nextBoolean();
+			NavigableMap<Long, Long> actualView = viewOf(map, view, bound1, inclusive1, bound2, inclusive2);
+			NavigableMap<Long, Long> expectedView = viewOf(model, view, bound1, inclusive1, bound2, inclusive2);
+			int kind = random.nextInt(MAP_OPERATIONS);
+			if ((kind == MAP_OPERATIONS - 1) && (operation % LISTING_PERIOD != 0)) {
+				kind = 0;
+			}
+			long key = random.nextInt(keyCount);
+			long value = random.nextLong();
+			long otherValue = random.nextBoolean() ? value + 1 : Objects.hashCode(model.get(key));
+			if (kind == MAP_OPERATIONS - 2) {
+				Map<Long, Long> puts = new TreeMap<>();
+				Set<Long> removes = new HashSet<>();
+				for (int index = 0; index < BATCH_SIZE; index++) {
+					long batchKey = random.nextInt(keyCount);
+					if (random.nextInt(4) == 0) {
+						puts.remove(batchKey);
+						removes.add(batchKey);
+					} else {
+						removes.remove(batchKey);
+						puts.put(batchKey, random.nextLong());
+					}
+				}
+				map.apply(puts, removes);
+				model.putAll(puts);
+				model.keySet().removeAll(removes);
+				compare("map", operation, "apply " + puts + " " + removes, map.size(), model.size());
+				continue;
+			}
+			Function<NavigableMap<Long, Long>, Object> step = mapStep(kind, key, value, otherValue);
+			compare("map", operation, "operation " + kind + " on view " + view + " " + bound1 + " " + bound2 + " key "
+					+ key, resultOf(step, actualView), resultOf(step, expectedView));
+		}
+		compare("map", operations, "contents", new ArrayList<>(map.entrySet()).toString()
+				, new ArrayList<>(model.entrySet()).toString());
+		System.out.printf("map: %,d operations, %d keys, matches TreeMap%n", operations, model.size());
+	}
+
+	private static Function<NavigableMap<Long, Long>, Object> mapStep(int kind, long key, long value, long otherValue) {
+		switch (kind) {
+		case 0:
+			return view -> view.get(key);
+		case 1:
+			return view -> view.containsKey(key);
+		case 2:
+			return view -> view.put(key, value);
+		case 3:
+			return view -> view.putIfAbsent(key, value);
+		case 4:
+			return view -> view.remove(key);
+		case 5:
+			return view -> view.remove(key, otherValue);
+		case 6:
+			return view -> view.replace(key, value);
+		case 7:
+			return view -> view.replace(key, otherValue, value);
+		case 8:
+			return view -> view.ceilingEntry(key);
+		case 9:
+			return view -> view.floorEntry(key);
+		case 10:
+			return view -> view.higherEntry(key);
+		case 11:
+			return view -> view.lowerEntry(key);
+		case 12:
+			return view -> view.firstEntry();
+		case 13:
+			return view -> view.lastEntry();
+		case 14:
+			return view -> view.pollFirstEntry();
+		case 15:
+			return view -> view.pollLastEntry();
+		case 16:
+			return view -> view.size();
+		case 17:
+			return view -> view.isEmpty();
+		case 18:
+			return view -> view.merge(key, value, (value1, value2) -> ((value1 & 1) == 0) ? null : value1 ^ value2);
+		case 19:
+			return view -> view.computeIfAbsent(key, absentKey -> value);
+		default:
+			return view -> new ArrayList<>(view.entrySet());
+		}
+	}
+
+	private static void checkSet(Random random, int operations, int keyCount) {
+		ConcurrentSkipListSet<Long> set = new ConcurrentSkipListSet<>();
+		TreeSet<Long> model = new TreeSet<>();
+		for (int operation = 1; operation <= operations; operation++) {
+			int view = random.nextInt(8);
+			long bound1 = random.nextInt(keyCount + 4) - 2;
+			long bound2 = random.nextInt(keyCount + 4) - 2;
+			boolean inclusive1 = random.nextBoolean();
+			boolean inclusive2 = random.nextBoolean();
+			NavigableSet<Long> actualView = viewOf(set, view, bound1, inclusive1, bound2, inclusive2);
+			NavigableSet<Long> expectedView = viewOf(model, view, bound1, inclusive1, bound2, inclusive2);
+			int kind = random.nextInt(SET_OPERATIONS);
+			if ((kind == SET_OPERATIONS - 1) && (operation % LISTING_PERIOD != 0)) {
+				kind = 0;
+			}
+			if (((kind == 8) || (kind == 9)) && (operation % POLLING_PERIOD != 0)) {
+				kind = 1;
+			}
+			long item = random.nextInt(keyCount);
+			Function<NavigableSet<Long>, Object> step = setStep(kind, item);
+			compare("set", operation, "operation " + kind + " on view " + view + " " + bound1 + " " + bound2 + " item "
+					+ item, resultOf(step, actualView), resultOf(step, expectedView));
+		}
+		compare("set", operations, "contents", new ArrayList<>(set).toString(), new ArrayList<>(model).toString());
+		System.out.printf("set: %,d operations, %d items, matches TreeSet%n", operations, model.size());
+	}
+
+	private static Function<NavigableSet<Long>, Object> setStep(int kind, long item) {
+		switch (kind) {
+		case 0:
+			return view -> view.contains(item);
+		case 1:
+		case 2:
+			return view -> view.add(item);
+		case 3:
+			return view -> view.remove(item);
+		case 4:
+			return view -> view.ceiling(item);
+		case 5:
+			return view -> view.floor(item);
+		case 6:
+			return view -> view.higher(item);
+		case 7:
+			return view -> view.lower(item);
+		case 8:
+			return view -> view.pollFirst();
+		case 9:
+			return view -> view.pollLast();
+		case 10:
+			return view -> view.size();
+		default:
+			return view -> new ArrayList<>(view);
+		}
+	}
+
+	private static NavigableMap<Long, Long> viewOf(NavigableMap<Long, Long> map, int view, long bound1
+			, boolean inclusive1, long bound2, boolean inclusive2) {
+		switch (view) {
+		case 1:
+			return map.headMap(bound1, inclusive1);
+		case 2:
+			return map.tailMap(bound1, inclusive1);
+		case 3:
+			return map.subMap(Math.min(bound1, bound2), inclusive1, Math.max(bound1, bound2), inclusive2);
+		case 4:
+			return map.descendingMap();
+		case 5:
+			return map.descendingMap().subMap(Math.max(bound1, bound2), inclusive1, Math.min(bound1, bound2), inclusive2);
+		default:
+			return map;
+		}
+	}
+
+	private static NavigableSet<Long> viewOf(NavigableSet<Long> set, int view, long bound1, boolean inclusive1
+			, long bound2, boolean inclusive2) {
+		switch (view) {
+		case 1:
+			return set.headSet(bound1, inclusive1);
+		case 2:
+			return set.tailSet(bound1, inclusive1);
+		case 3:
+			return set.subSet(Math.min(bound1, bound2), inclusive1, Math.max(bound1, bound2), inclusive2);
+		case 4:
+			return set.descendingSet();
+		case 5:
+			return set.descendingSet().subSet(Math.max(bound1, bound2), inclusive1, Math.min(bound1, bound2), inclusive2);
+		default:
+			return set;
+		}
+	}
+
+	private static <T> Object resultOf(Function<T, Object> step, T view) {
+		Object result;
+		try {
+			result = step.apply(view);
+		} catch (RuntimeException e) {
+			return e.getClass().getSimpleName();
+		}
+		if (result instanceof Map.Entry) {
+			Map.Entry<?, ?> entry = (Map.Entry<?, ?>) result;
+			return new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), entry.getValue());
+		}
+		if (result instanceof Collection) {
+			List<Object> items = new ArrayList<>();
+			for (Object item : (Collection<?>) result) {
+				items.add(item.toString());
+			}
+			return items;
+		}
+		return result;
+	}
+
+	private static void compare(String structure, int operation, String description, Object actual, Object expected) {
+		if (!Objects.equals(actual, expected)) {
+			System.out.println(structure + " operation " + operation + ": " + description + " returned " + actual
+					+ ", expected " + expected);
+			System.exit(1);
+		}
+	}
+
+}
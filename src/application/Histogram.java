@@ -0,0 +1,90 @@
+package application;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class Histogram {
+
+	private static final int SUB_BUCKET_BITS = 7;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final int HALF_SUB_BUCKET_COUNT = SUB_BUCKET_COUNT >>> 1;
+	private static final int BUCKET_COUNT = SUB_BUCKET_COUNT + (Long.SIZE - SUB_BUCKET_BITS) * HALF_SUB_BUCKET_COUNT;
+
+	private final AtomicLongArray counts;
+	private final AtomicLong totalCount;
+	private final AtomicLong maximumValue;
+
+	public Histogram() {
+		counts = new AtomicLongArray(BUCKET_COUNT);
+		totalCount = new AtomicLong();
+		maximumValue = new AtomicLong();
+	}
+
+	public void record(long value) {
+		if (value < 0) {
+			throw new IllegalArgumentException();
+		}
+		counts.incrementAndGet(indexOf(value));
+		totalCount.incrementAndGet();
+		raiseMaximum(value);
+	}
+
+	public void add(Histogram histogram) {
+		for (int index = 0; index < BUCKET_COUNT; index++) {
+			long count = histogram.counts.get(index);
+			if (count > 0) {
+				counts.addAndGet(index, count);
+			}
+		}
+		totalCount.addAndGet(histogram.getTotalCount());
+		raiseMaximum(histogram.getMaximumValue());
+	}
+
+	public long getTotalCount() {
+		return totalCount.get();
+	}
+
+	public long getMaximumValue() {
+		return maximumValue.get();
+	}
+
+	public long getValueAtPercentile(double percentile) {
+		if ((percentile < 0) || (percentile > 100)) {
+			throw new IllegalArgumentException();
+		}
+		long targetCount = Math.max((long) Math.ceil(percentile / 100 * getTotalCount()), 1);
+		long count = 0;
+		for (int index = 0; index < BUCKET_COUNT; index++) {
+			count += counts.get(index);
+			if (count >= targetCount) {
+				return Math.min(highestValueOf(index), getMaximumValue());
+			}
+		}
+		return 0;
+	}
+
+	private void raiseMaximum(long value) {
+		long maximum = maximumValue.get();
+		while ((value > maximum) && !maximumValue.compareAndSet(maximum, value)) {
+			maximum = maximumValue.get();
+		}
+	}
+
+	private static int indexOf(long value) {
+		if (value < SUB_BUCKET_COUNT) {
+			return (int) value;
+		}
+		int shift = Long.SIZE - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+		return SUB_BUCKET_COUNT + (shift - 1) * HALF_SUB_BUCKET_COUNT + (int) (value >>> shift) - HALF_SUB_BUCKET_COUNT;
+	}
+
+	private static long highestValueOf(int index) {
+		if (index < SUB_BUCKET_COUNT) {
+			return index;
+		}
+		int shift = (index - SUB_BUCKET_COUNT) / HALF_SUB_BUCKET_COUNT + 1;
+		long subBucket = (index - SUB_BUCKET_COUNT) % HALF_SUB_BUCKET_COUNT + HALF_SUB_BUCKET_COUNT;
+		return (subBucket << shift) + (1L << shift) - 1;
+	}
+
+}
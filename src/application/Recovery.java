@@ -0,0 +1,181 @@
+package application;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import ua.shevchuk.concurrent.Codec;
+import ua.shevchuk.concurrent.ConcurrentSkipListMap;
+import ua.shevchuk.concurrent.WriteAheadLog;
+
+public class Recovery {
+
+	private static final String WRITER = "writer";
+	private static final int KEYS_PER_THREAD = 64;
+	private static final int HOT_KEYS = 4;
+	private static final int REMOVE_PERIOD = 5;
+	private static final long ROUND_BASE = 1L << 32;
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		if ((args.length > 0) && args[0].equals(WRITER)) {
+			write(Paths.get(args[1]), Integer.parseInt(args[2]), Long.parseLong(args[3]), Integer.parseInt(args[4]));
+			return;
+		}
+		int rounds = (args.length > 0) ? Integer.parseInt(args[0]) : 5;
+		long millis = (args.length > 1) ? Long.parseLong(args[1]) : 2000;
+		int threads = (args.length > 2) ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+		int operations = (args.length > 3) ? Integer.parseInt(args[3]) : 10000;
+		if ((rounds <= 0) || (millis <= 0) || (threads <= 0) || (operations <= 0)) {
+			throw new IllegalArgumentException();
+		}
+		Path directory = Files.createTempDirectory("recovery");
+		Path path = directory.resolve("map.log");
+		Map<Long, Long> expected = recover(path);
+		try {
+			for (int round = 1; round <= rounds; round++) {
+				long[] acknowledged = new long[threads * KEYS_PER_THREAD];
+				long base = round * ROUND_BASE;
+				long count = run(path, threads, base, 0, millis, acknowledged);
+				Map<Long, Long> recovered = recover(path);
+				for (int key = 0; key < acknowledged.length; key++) {
+					Long value = recovered.get((long) key);
+					Long acknowledgedValue = (acknowledged[key] == 0) ? expected.get((long) key)
+							: valueOf(base, acknowledged[key]);
+					Long nextValue = valueOf(base, (acknowledged[key] == 0) ? 1 : acknowledged[key] + 1);
+					if (!equals(value, acknowledgedValue) && !equals(value, nextValue)) {
+						System.out.println("round " + round + ": key " + key + " recovered " + value
+								+ ", acknowledged " + acknowledgedValue);
+						System.exit(1);
+					}
+				}
+				System.out.printf("round %d: %,d acknowledged writes, %d keys recovered%n", round, count
+						, recovered.size());
+				long[] written = new long[acknowledged.length];
+				run(path, threads, base + ROUND_BASE / 2, operations, 0, written);
+				recovered = recover(path);
+				for (int key = 0; key < written.length; key++) {
+					Long value = (written[key] == 0) ? null : written[key];
+					if (!equals(recovered.get((long) key), value)) {
+						System.out.println("round " + round + ": key " + key + " recovered " + recovered.get((long) key)
+								+ ", written " + value);
+						System.exit(1);
+					}
+				}
+				System.out.printf("round %d: %,d contended writes, %d keys recovered%n", round, threads * (long) operations
+						, recovered.size());
+				expected = recovered;
+			}
+		} finally {
+			Files.deleteIfExists(path);
+			Files.deleteIfExists(directory);
+		}
+	}
+
+	private static long run(Path path, int threads, long base, int operations, long millis, long[] acknowledged)
+			throws IOException, InterruptedException {
+		Path output = path.resolveSibling("acknowledged.txt");
+		Process process = new ProcessBuilder(Paths.get(System.getProperty("java.home"), "bin", "java").toString()
+				, "-cp", System.getProperty("java.class.path"), Recovery.class.getName(), WRITER, path.toString()
+				, Integer.toString(threads), Long.toString(base), Integer.toString(operations))
+				.redirectOutput(output.toFile()).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+		try {
+			if (operations == 0) {
+				while (process.isAlive() && (Files.size(output) == 0)) {
+					Thread.sleep(10);
+				}
+				Thread.sleep(millis);
+				process.destroyForcibly();
+			}
+			if (process.waitFor() != 0 && (operations > 0)) {
+				throw new IllegalStateException("Writer failed");
+			}
+			long count = 0;
+			try (BufferedReader reader = Files.newBufferedReader(output)) {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					int separator = line.indexOf(' ');
+					if (separator > 0) {
+						acknowledged[Integer.parseInt(line.substring(0, separator))] = Long.parseLong(line.substring(separator + 1));
+						count++;
+					}
+				}
+			}
+			return count;
+		} finally {
+			Files.deleteIfExists(output);
+		}
+	}
+
+	private static void write(Path path, int threads, long base, int operations)
+			throws IOException, InterruptedException {
+		WriteAheadLog<Long, Long> log = new WriteAheadLog<>(path, Codec.ofLong(), Codec.ofLong());
+		ConcurrentSkipListMap<Long, Long> map = log.recover(null);
+		PrintStream out = System.out;
+		out.println("ready");
+		List<Thread> writers = new ArrayList<>(threads);
+		for (int thread = 0; thread < threads; thread++) {
+			int firstKey = (operations == 0) ? thread * KEYS_PER_THREAD : 0;
+			int keys = (operations == 0) ? KEYS_PER_THREAD : HOT_KEYS;
+			long threadBase = base + thread * (long) operations;
+			writers.add(new Thread(() -> {
+				long[] keyOperations = new long[keys];
+				ThreadLocalRandom random = ThreadLocalRandom.current();
+				for (int operation = 1; (operations == 0) || (operation <= operations); operation++) {
+					int index = random.nextInt(keys);
+					long key = firstKey + index;
+					if (operations > 0) {
+						if (operation % REMOVE_PERIOD == 0) {
+							map.remove(key);
+						} else {
+							map.put(key, threadBase + operation);
+						}
+						continue;
+					}
+					long keyOperation = ++keyOperations[index];
+					Long value = valueOf(base, keyOperation);
+					if (value == null) {
+						map.remove(key);
+					} else {
+						map.put(key, value);
+					}
+					synchronized (out) {
+						out.println(key + " " + keyOperation);
+					}
+				}
+			}));
+		}
+		for (Thread writer : writers) {
+			writer.start();
+		}
+		for (Thread writer : writers) {
+			writer.join();
+		}
+		for (Map.Entry<Long, Long> entry : map.entrySet()) {
+			out.println(entry.getKey() + " " + entry.getValue());
+		}
+		out.flush();
+		Runtime.getRuntime().halt(0);
+	}
+
+	private static Map<Long, Long> recover(Path path) throws IOException {
+		try (WriteAheadLog<Long, Long> log = new WriteAheadLog<>(path, Codec.ofLong(), Codec.ofLong())) {
+			return log.recover(null).clone();
+		}
+	}
+
+	private static Long valueOf(long base, long operation) {
+		return (operation % REMOVE_PERIOD == 0) ? null : base + operation;
+	}
+
+	private static boolean equals(Long value1, Long value2) {
+		return (value1 == null) ? (value2 == null) : value1.equals(value2);
+	}
+
+}
@@ -0,0 +1,102 @@
+package application;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import ua.shevchuk.concurrent.Codec;
+import ua.shevchuk.concurrent.ConcurrentSkipListMap;
+import ua.shevchuk.concurrent.ReplicationFollower;
+import ua.shevchuk.concurrent.ReplicationPrimary;
+import ua.shevchuk.concurrent.SocketReplicationTransport;
+
+public class Replication {
+
+	private static final int HOT_KEYS = 16;
+	private static final long CATCH_UP_SECONDS = 60;
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		long seconds = (args.length > 0) ? Long.parseLong(args[0]) : 5;
+		int keyCount = (args.length > 1) ? Integer.parseInt(args[1]) : 1 << 20;
+		int writerCount = (args.length > 2) ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+		if ((seconds <= 0) || (keyCount <= 0) || (writerCount <= 0)) {
+			throw new IllegalArgumentException();
+		}
+		ConcurrentSkipListMap<Long, Long> primaryMap = new ConcurrentSkipListMap<>();
+		for (long key = 0; key < keyCount; key++) {
+			primaryMap.put(key, key);
+		}
+		ConcurrentSkipListMap<Long, Long> followerMap = new ConcurrentSkipListMap<>();
+		for (long key = -1; key < keyCount + 1; key += 3) {
+			followerMap.put(key, -key);
+		}
+
+		try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+			ReplicationFollower<Long, Long> follower = new ReplicationFollower<>(followerMap, Codec.ofLong()
+					, Codec.ofLong(), SocketReplicationTransport.connect(server.getInetAddress().getHostAddress()
+							, server.getLocalPort()));
+			ReplicationPrimary<Long, Long> primary = new ReplicationPrimary<>(primaryMap, Codec.ofLong()
+					, Codec.ofLong(), new SocketReplicationTransport(server.accept()));
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+			List<Thread> writers = new ArrayList<>(writerCount);
+			for (int writer = 0; writer < writerCount; writer++) {
+				writers.add(new Thread(() -> write(primaryMap, keyCount, deadline)));
+			}
+			for (Thread writer : writers) {
+				writer.start();
+			}
+			Thread followerThread = new Thread(follower);
+			Thread primaryThread = new Thread(primary);
+			long startTime = System.nanoTime();
+			followerThread.start();
+			primaryThread.start();
+
+			while (!follower.isSynchronized() && followerThread.isAlive()) {
+				Thread.sleep(1);
+			}
+			long synchronizedTime = System.nanoTime();
+			for (Thread writer : writers) {
+				writer.join();
+			}
+			long feedSequence = primaryMap.changeFeed().sequence();
+			long catchUpDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(CATCH_UP_SECONDS);
+			while ((follower.sequence() < feedSequence) && followerThread.isAlive()
+					&& (System.nanoTime() - catchUpDeadline < 0)) {
+				Thread.sleep(1);
+			}
+			long caughtUpTime = System.nanoTime();
+			boolean converged = primaryMap.equals(followerMap);
+
+			primary.close();
+			follower.close();
+			primaryThread.join();
+			followerThread.join();
+
+			System.out.printf("snapshot of %,d keys synchronized in %,d ms, caught up at sequence %,d in %,d ms%n"
+					, keyCount, TimeUnit.NANOSECONDS.toMillis(synchronizedTime - startTime), follower.sequence()
+					, TimeUnit.NANOSECONDS.toMillis(caughtUpTime - startTime));
+			System.out.println("primary " + primaryMap.size() + " keys, follower " + followerMap.size() + " keys, "
+					+ (converged ? "converged" : "diverged"));
+			if (!converged) {
+				System.exit(1);
+			}
+		}
+	}
+
+	private static void write(ConcurrentSkipListMap<Long, Long> map, int keyCount, long deadline) {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		while (System.nanoTime() - deadline < 0) {
+			long key = random.nextBoolean() ? random.nextInt(HOT_KEYS) : random.nextLong(keyCount + keyCount / 4);
+			if (random.nextInt(4) == 0) {
+				map.remove(key);
+			} else {
+				map.put(key, random.nextLong());
+			}
+		}
+	}
+
+}
@@ -0,0 +1,187 @@
+package application;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import ua.shevchuk.concurrent.ConcurrentSkipListMap;
+
+public class Stress {
+
+	private static final int BATCH_SIZE = 8;
+	private static final int RANGE_SIZE = 256;
+
+	public static void main(String[] args) throws InterruptedException {
+		long seconds = (args.length > 0) ? Long.parseLong(args[0]) : 5;
+		int keyCount = (args.length > 1) ? Integer.parseInt(args[1]) : 1 << 16;
+		int writerCount = (args.length > 2) ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+		int readerCount = (args.length > 3) ? Integer.parseInt(args[3]) : 2;
+		if ((seconds <= 0) || (keyCount < writerCount) || (writerCount <= 0) || (readerCount < 0)) {
+			throw new IllegalArgumentException();
+		}
+		ConcurrentSkipListMap<Long, Long> map = new ConcurrentSkipListMap<>();
+		List<TreeMap<Long, Long>> models = new ArrayList<>(writerCount);
+		AtomicReference<String> failure = new AtomicReference<>();
+		AtomicLong writes = new AtomicLong();
+		AtomicLong reads = new AtomicLong();
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+		List<Thread> threads = new ArrayList<>(writerCount + readerCount);
+		for (int writer = 0; writer < writerCount; writer++) {
+			TreeMap<Long, Long> model = new TreeMap<>();
+			models.add(model);
+			int stripe = writer;
+			threads.add(new Thread(() -> write(map, model, stripe, writerCount, keyCount, deadline, failure, writes)));
+		}
+		for (int reader = 0; reader < readerCount; reader++) {
+			threads.add(new Thread(() -> read(map, keyCount, deadline, failure, reads)));
+		}
+		for (Thread thread : threads) {
+			thread.setUncaughtExceptionHandler((failedThread, e) -> failure.compareAndSet(null
+					, failedThread.getName() + ": " + e));
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		if (failure.get() == null) {
+			TreeMap<Long, Long> expected = new TreeMap<>();
+			for (TreeMap<Long, Long> model : models) {
+				expected.putAll(model);
+			}
+			if (!expected.equals(map)) {
+				failure.set("contents differ from the writers' models");
+			} else if (map.size() != expected.size()) {
+				failure.set("size " + map.size() + ", expected " + expected.size());
+			}
+		}
+		System.out.printf("%d writers: %,d writes, %d readers: %,d reads, %,d keys%n", writerCount, writes.get()
+				, readerCount, reads.get(), map.size());
+		if (failure.get() != null) {
+			System.out.println(failure.get());
+			System.exit(1);
+		}
+	}
+
+	private static void write(ConcurrentSkipListMap<Long, Long> map, TreeMap<Long, Long> model, int stripe
+			, int writerCount, int keyCount, long deadline, AtomicReference<String> failure, AtomicLong writes) {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int stripeSize = (keyCount - stripe + writerCount - 1) / writerCount;
+		long count = 0;
+		while ((failure.get() == null) && (System.nanoTime() - deadline < 0)) {
+			long key = (long) random.nextInt(stripeSize) * writerCount + stripe;
+			long value = valueOf(key, random);
+			Long current = model.get(key);
+			int operation = random.nextInt(8);
+			switch (operation) {
+			case 0:
+			case 1:
+				check(failure, "put", key, map.put(key, value), model.put(key, value));
+				break;
+			case 2:
+				check(failure, "putIfAbsent", key, map.putIfAbsent(key, value), model.putIfAbsent(key, value));
+				break;
+			case 3:
+				check(failure, "remove", key, map.remove(key), model.remove(key));
+				break;
+			case 4:
+				Long oldValue = ((current != null) && random.nextBoolean()) ? current : Long.valueOf(value);
+				check(failure, "replace", key, map.replace(key, oldValue, value), model.replace(key, oldValue, value));
+				break;
+			case 5:
+				Long removedValue = ((current != null) && random.nextBoolean()) ? current : Long.valueOf(value);
+				check(failure, "remove value", key, map.remove(key, removedValue), model.remove(key, removedValue));
+				break;
+			case 6:
+				check(failure, "get", key, map.get(key), current);
+				break;
+			default:
+				Map<Long, Long> puts = new TreeMap<>();
+				Set<Long> removes = new HashSet<>();
+				for (int index = 0; index < BATCH_SIZE; index++) {
+					long batchKey = (long) random.nextInt(stripeSize) * writerCount + stripe;
+					if (random.nextInt(4) == 0) {
+						puts.remove(batchKey);
+						removes.add(batchKey);
+					} else {
+						removes.remove(batchKey);
+						puts.put(batchKey, valueOf(batchKey, random));
+					}
+				}
+				map.apply(puts, removes);
+				model.putAll(puts);
+				model.keySet().removeAll(removes);
+				for (Long batchKey : removes) {
+					check(failure, "apply", batchKey, map.get(batchKey), null);
+				}
+				for (Map.Entry<Long, Long> entry : puts.entrySet()) {
+					check(failure, "apply", entry.getKey(), map.get(entry.getKey()), entry.getValue());
+				}
+			}
+			count++;
+		}
+		writes.addAndGet(count);
+	}
+
+	private static void read(ConcurrentSkipListMap<Long, Long> map, int keyCount, long deadline
+			, AtomicReference<String> failure, AtomicLong reads) {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		long count = 0;
+		while ((failure.get() == null) && (System.nanoTime() - deadline < 0)) {
+			long low = random.nextInt(keyCount);
+			long high = low + random.nextInt(RANGE_SIZE);
+			boolean descending = random.nextBoolean();
+			NavigableMap<Long, Long> view = map.subMap(low, true, high, false);
+			if (descending) {
+				view = view.descendingMap();
+			}
+			Long previousKey = null;
+			for (Map.Entry<Long, Long> entry : view.entrySet()) {
+				long key = entry.getKey();
+				if ((key < low) || (key >= high)) {
+					failure.compareAndSet(null, "key " + key + " outside [" + low + ", " + high + ")");
+				} else if ((previousKey != null) && ((previousKey < key) == descending)) {
+					failure.compareAndSet(null, "key " + key + " after " + previousKey + (descending ? " descending" : ""));
+				} else if (!isValueOf(key, entry.getValue())) {
+					failure.compareAndSet(null, "key " + key + " has value " + entry.getValue());
+				}
+				previousKey = key;
+				count++;
+			}
+			Map.Entry<Long, Long> ceiling = map.ceilingEntry(low);
+			if ((ceiling != null) && ((ceiling.getKey() < low) || !isValueOf(ceiling.getKey(), ceiling.getValue()))) {
+				failure.compareAndSet(null, "ceiling of " + low + " is " + ceiling);
+			}
+			int size = map.size();
+			if ((size < 0) || (size > keyCount)) {
+				failure.compareAndSet(null, "size " + size);
+			}
+			count++;
+		}
+		reads.addAndGet(count);
+	}
+
+	private static long valueOf(long key, ThreadLocalRandom random) {
+		return (key << 32) | (random.nextInt() & 0xFFFFFFFFL);
+	}
+
+	private static boolean isValueOf(long key, Long value) {
+		return (value != null) && ((value >>> 32) == key);
+	}
+
+	private static void check(AtomicReference<String> failure, String operation, long key, Object actual, Object expected) {
+		if (!Objects.equals(actual, expected)) {
+			failure.compareAndSet(null, operation + " of key " + key + " returned " + actual + ", expected " + expected);
+		}
+	}
+
+}
@@ -0,0 +1,79 @@
+package ua.shevchuk.concurrent;
+
+import java.util.Comparator;
+
+public interface Abbreviator<T> {
+
+	long abbreviate(T item);
+
+	default boolean isExact() {
+		return false;
+	}
+
+	default Comparator<? super T> comparator() {
+		return null;
+	}
+
+	static Abbreviator<Integer> ofInteger() {
+		return new Abbreviator<Integer>() {
+
+			@Override
+			public long abbreviate(Integer item) {
+				return item;
+			}
+
+			@Override
+			public boolean isExact() {
+				return true;
+			}
+
+		};
+	}
+
+	static Abbreviator<Long> ofLong() {
+		return new Abbreviator<Long>() {
+
+			@Override
+			public long abbreviate(Long item) {
+				return item;
+			}
+
+			@Override
+			public boolean isExact() {
+				return true;
+			}
+
+		};
+	}
+
+	static Abbreviator<String> ofString() {
+		return item -> {
+			long prefix = 0;
+			for (int index = 0; index < Long.BYTES / Character.BYTES; index++) {
+				prefix = (prefix << Character.SIZE) | ((index < item.length()) ? item.charAt(index) : 0);
+			}
+			return prefix ^ Long.MIN_VALUE;
+		};
+	}
+
+	static Abbreviator<byte[]> ofBytes() {
+		return new Abbreviator<byte[]>() {
+
+			@Override
+			public long abbreviate(byte[] item) {
+				long prefix = 0;
+				for (int index = 0; index < Long.BYTES; index++) {
+					prefix = (prefix << Byte.SIZE) | ((index < item.length) ? (item[index] & 0xff) : 0);
+				}
+				return prefix ^ Long.MIN_VALUE;
+			}
+
+			@Override
+			public Comparator<? super byte[]> comparator() {
+				return ByteKeys.comparator();
+			}
+
+		};
+	}
+
+}
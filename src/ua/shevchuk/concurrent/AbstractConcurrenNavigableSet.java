@@ -1,7 +1,11 @@
 package ua.shevchuk.concurrent;
 
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.SortedSet;
 
 public abstract class AbstractConcurrenNavigableSet<E> extends AbstractConcurrentSet<E> implements NavigableSet<E> {
 
@@ -16,6 +20,56 @@ public abstract class AbstractConcurrenNavigableSet<E> extends AbstractConcurren
 		return comparator;
 	}
 
+	@Override
+	public boolean containsAll(Collection<?> collection) {
+		if (!isSameOrder(collection)) {
+			return super.containsAll(collection);
+		}
+		Iterator<E> iterator = iterator();
+		E item = null;
+		int compare = -1;
+		for (Object otherItem : collection) {
+			while ((compare < 0) && iterator.hasNext()) {
+				item = iterator.next();
+				compare = compare(item, otherItem);
+			}
+			if (compare != 0) {
+				return false;
+			}
+			compare = -1;
+		}
+		return true;
+	}
+
+	@Override
+	public boolean removeAll(Collection<?> collection) {
+		return isSameOrder(collection) ? merge(collection, true) : super.removeAll(collection);
+	}
+
+	@Override
+	public boolean retainAll(Collection<?> collection) {
+		return isSameOrder(collection) ? merge(collection, false) : super.retainAll(collection);
+	}
+
+	@Override
+	public boolean equals(Object object) {
+		if ((object == this) || !isSameOrder(object)) {
+			return super.equals(object);
+		}
+		Iterator<E> iterator = iterator();
+		Iterator<?> otherIterator = ((SortedSet<?>) object).iterator();
+		try {
+			while (iterator.hasNext() && otherIterator.hasNext()) {
+				if (compare(iterator.next(), otherIterator.next()) != 0) {
+					return false;
+				}
+			}
+		} catch (ClassCastException e) {
+			return false;
+		}
+		return !iterator.hasNext() && !otherIterator.hasNext();
+	}
+
 	@Override
 	public ConcurrentIterator<E> descendingIterator() {
 		return (ConcurrentIterator<E>) descendingSet().iterator();
@@ -36,4 +90,36 @@ public abstract class AbstractConcurrenNavigableSet<E> extends AbstractConcurren
 		return tailSet(fromItem, true);
 	}
 
+	private boolean merge(Collection<?> collection, boolean remove) {
+		boolean modified = false;
+		Iterator<?> otherIterator = collection.iterator();
+		Object otherItem = null;
+		int compare = 1;
+		ConcurrentIterator<E> iterator = iterator();
+		while (iterator.hasNext()) {
+			E item = iterator.next();
+			if (compare <= 0) {
+				compare = compare(item, otherItem);
+			}
+			while ((compare > 0) && otherIterator.hasNext()) {
+				otherItem = otherIterator.next();
+				compare = compare(item, otherItem);
+			}
+			if (((compare == 0) == remove) && iterator.removeElement()) {
+				modified = true;
+			}
+		}
+		return modified;
+	}
+
+	private boolean isSameOrder(Object object) {
+		return (object instanceof SortedSet) && Objects.equals(comparator, ((SortedSet<?>) object).comparator());
+	}
+
+	@SuppressWarnings("unchecked")
+	private int compare(Object item1, Object item2) {
+		return (comparator == null) ? ((Comparable<Object>) item1).compareTo(item2)
+			: ((Comparator<Object>) comparator).compare(item1, item2);
+	}
+
 }
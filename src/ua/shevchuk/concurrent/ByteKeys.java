@@ -0,0 +1,58 @@
+package ua.shevchuk.concurrent;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+
+public final class ByteKeys {
+
+	private static final Comparator<byte[]> COMPARATOR = (key1, key2) -> compare(key1, 0, key2, 0);
+
+	private ByteKeys() {
+	}
+
+	public static Comparator<byte[]> comparator() {
+		return COMPARATOR;
+	}
+
+	public static byte[] of(String key) {
+		return key.getBytes(StandardCharsets.UTF_8);
+	}
+
+	public static int mismatch(byte[] key1, byte[] key2) {
+		return mismatch(key1, 0, key2, 0);
+	}
+
+	public static int mismatch(byte[] key1, int offset1, byte[] key2, int offset2) {
+		int length1 = key1.length - offset1;
+		int length2 = key2.length - offset2;
+		int length = Math.min(length1, length2);
+		for (int index = 0; index < length; index++) {
+			if (key1[offset1 + index] != key2[offset2 + index]) {
+				return index;
+			}
+		}
+		return (length1 == length2) ? -1 : length;
+	}
+
+	public static int compare(byte[] key1, int offset1, byte[] key2, int offset2) {
+		int index = mismatch(key1, offset1, key2, offset2);
+		if (index < 0) {
+			return 0;
+		}
+		if ((offset1 + index == key1.length) || (offset2 + index == key2.length)) {
+			return (key1.length - offset1) - (key2.length - offset2);
+		}
+		return (key1[offset1 + index] & 0xff) - (key2[offset2 + index] & 0xff);
+	}
+
+	public static boolean startsWith(byte[] key, byte[] prefix) {
+		int index = mismatch(key, prefix);
+		return (index < 0) || (index == prefix.length);
+	}
+
+	static int commonPrefixLength(byte[] key1, byte[] key2) {
+		int index = mismatch(key1, key2);
+		return (index < 0) ? key1.length : index;
+	}
+
+}
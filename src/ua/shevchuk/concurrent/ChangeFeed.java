@@ -0,0 +1,180 @@
+package ua.shevchuk.concurrent;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+public class ChangeFeed<K, V> {
+
+	public enum Operation {
+		INSERT, UPDATE, REMOVE
+	}
+
+	static final int DEFAULT_CAPACITY = 1 << 16;
+
+	private static final long SETTLE_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+	private final AtomicReferenceArray<Event<K, V>> events;
+	private final int mask;
+	private final AtomicLong sequence;
+
+	public ChangeFeed(int capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException();
+		}
+		int roundedCapacity = Integer.highestOneBit(capacity);
+		if (roundedCapacity < capacity) {
+			roundedCapacity <<= 1;
+		}
+		events = new AtomicReferenceArray<>(roundedCapacity);
+		mask = roundedCapacity - 1;
+		sequence = new AtomicLong();
+	}
+
+	public int capacity() {
+		return mask + 1;
+	}
+
+	public long sequence() {
+		return sequence.get();
+	}
+
+	public Cursor cursor() {
+		return new Cursor(sequence.get());
+	}
+
+	public Cursor cursor(long position) {
+		if (position < 0) {
+			throw new IllegalArgumentException();
+		}
+		return new Cursor(position);
+	}
+
+	Consumer<Boolean> reserve(Operation operation, K key, V oldValue, V newValue) {
+		long eventSequence = sequence.getAndIncrement();
+		return published -> {
+			if (!publish(new Event<>(published ? operation : null, key, oldValue, newValue, eventSequence))
+					&& published) {
+				reserve(operation, key, oldValue, newValue).accept(true);
+			}
+		};
+	}
+
+	void settle(long position) {
+		long deadline = System.nanoTime() + SETTLE_NANOS;
+		for (long eventSequence = Math.max(position - capacity(), 0); eventSequence < position; eventSequence++) {
+			int index = (int) eventSequence & mask;
+			Event<K, V> event = events.get(index);
+			while ((event == null) || (event.sequence < eventSequence)) {
+				if ((System.nanoTime() - deadline >= 0)
+						&& events.compareAndSet(index, event, new Event<>(null, null, null, null, eventSequence))) {
+					break;
+				}
+				Thread.yield();
+				event = events.get(index);
+			}
+		}
+	}
+
+	private boolean publish(Event<K, V> event) {
+		int index = (int) event.sequence & mask;
+		while (true) {
+			Event<K, V> currentEvent = events.get(index);
+			if ((currentEvent != null) && (currentEvent.sequence >= event.sequence)) {
+				return (currentEvent.sequence > event.sequence);
+			}
+			if (events.compareAndSet(index, currentEvent, event)) {
+				return true;
+			}
+		}
+	}
+
+	public static class Event<K, V> {
+
+		private final Operation operation;
+		private final K key;
+		private final V oldValue;
+		private final V newValue;
+		private final long sequence;
+
+		public Event(Operation operation, K key, V oldValue, V newValue, long sequence) {
+			this.operation = operation;
+			this.key = key;
+			this.oldValue = oldValue;
+			this.newValue = newValue;
+			this.sequence = sequence;
+		}
+
+		public Operation getOperation() {
+			return operation;
+		}
+
+		public K getKey() {
+			return key;
+		}
+
+		public V getOldValue() {
+			return oldValue;
+		}
+
+		public V getNewValue() {
+			return newValue;
+		}
+
+		public long getSequence() {
+			return sequence;
+		}
+
+		@Override
+		public String toString() {
+			return sequence + ":" + operation + " " + key + " " + oldValue + "->" + newValue;
+		}
+
+	}
+
+	public class Cursor {
+
+		private long position;
+		private long lost;
+
+		private Cursor(long position) {
+			this.position = position;
+		}
+
+		public long position() {
+			return position;
+		}
+
+		public long lost() {
+			return lost;
+		}
+
+		public int drain(Consumer<? super Event<K, V>> consumer, int maximum) {
+			if (consumer == null) {
+				throw new NullPointerException();
+			}
+			int count = 0;
+			while (count < maximum) {
+				Event<K, V> event = events.get((int) position & mask);
+				if ((event == null) || (event.sequence < position)) {
+					break;
+				}
+				if (event.sequence > position) {
+					long oldest = event.sequence - mask;
+					lost += oldest - position;
+					position = oldest;
+					continue;
+				}
+				position++;
+				if (event.operation != null) {
+					consumer.accept(event);
+					count++;
+				}
+			}
+			return count;
+		}
+
+	}
+
+}
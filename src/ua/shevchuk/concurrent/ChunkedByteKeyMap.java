@@ -0,0 +1,453 @@
+package ua.shevchuk.concurrent;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class ChunkedByteKeyMap<V> extends AbstractMap<byte[], V> {
+
+	private static final int MAXIMUM_CHUNK_SIZE = 64;
+	private static final byte[] EMPTY = new byte[0];
+
+	private final ConcurrentSkipListMap<byte[], Chunk<V>> index;
+	private final AtomicReference<Chunk<V>> headChunk;
+	private final AtomicInteger size;
+
+	public ChunkedByteKeyMap() {
+		index = new ConcurrentSkipListMap<>(ByteKeys.comparator(), null, Abbreviator.ofBytes());
+		headChunk = new AtomicReference<>(new Chunk<>(null, new State<>(EMPTY, new byte[0][], new Object[0])));
+		size = new AtomicInteger();
+	}
+
+	@Override
+	public V get(Object key) {
+		byte[] bytes = (byte[]) key;
+		State<V> state = chunkOf(bytes).state.get();
+		int position = state.search(bytes);
+		return (position >= 0) ? state.valueAt(position) : null;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return (get(key) != null);
+	}
+
+	@Override
+	public V put(byte[] key, V value) {
+		return put(key, value, false);
+	}
+
+	@Override
+	public V putIfAbsent(byte[] key, V value) {
+		return put(key, value, true);
+	}
+
+	private V put(byte[] key, V value, boolean onlyIfAbsent) {
+		if ((key == null) || (value == null)) {
+			throw new NullPointerException();
+		}
+		while (true) {
+			Chunk<V> chunk = chunkOf(key);
+			State<V> state = chunk.state.get();
+			if (state.frozen) {
+				help(chunk, state);
+				continue;
+			}
+			int position = state.search(key);
+			if (position >= 0) {
+				V oldValue = state.valueAt(position);
+				if (onlyIfAbsent || chunk.state.compareAndSet(state, state.replace(position, value))) {
+					return oldValue;
+				}
+				continue;
+			}
+			State<V> insertedState = state.insert(-position - 1, key, value);
+			int count = insertedState.size();
+			if (count <= MAXIMUM_CHUNK_SIZE) {
+				size.incrementAndGet();
+				if (chunk.state.compareAndSet(state, insertedState)) {
+					return null;
+				}
+				size.decrementAndGet();
+			} else {
+				int half = count >>> 1;
+				State<V> frozenState = insertedState.freeze(new Chunk<>(chunk.fence, insertedState.slice(0, half))
+						, new Chunk<>(insertedState.keyAt(half), insertedState.slice(half, count)));
+				size.incrementAndGet();
+				if (chunk.state.compareAndSet(state, frozenState)) {
+					help(chunk, frozenState);
+					return null;
+				}
+				size.decrementAndGet();
+			}
+		}
+	}
+
+	@Override
+	public V remove(Object key) {
+		byte[] bytes = (byte[]) key;
+		while (true) {
+			Chunk<V> chunk = chunkOf(bytes);
+			State<V> state = chunk.state.get();
+			if (state.frozen) {
+				help(chunk, state);
+				continue;
+			}
+			int position = state.search(bytes);
+			if (position < 0) {
+				return null;
+			}
+			State<V> removedState = state.remove(position);
+			if ((removedState.size() == 0) && (chunk.fence != null)) {
+				removedState = removedState.freeze(null, null);
+			}
+			if (chunk.state.compareAndSet(state, removedState)) {
+				size.decrementAndGet();
+				if (removedState.frozen) {
+					help(chunk, removedState);
+				}
+				return state.valueAt(position);
+			}
+		}
+	}
+
+	@Override
+	public int size() {
+		return size.get();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return (size() == 0);
+	}
+
+	@Override
+	public Set<Map.Entry<byte[], V>> entrySet() {
+		return new AbstractSet<Map.Entry<byte[], V>>() {
+
+			@Override
+			public Iterator<Map.Entry<byte[], V>> iterator() {
+				return new ChunkIterator(EMPTY);
+			}
+
+			@Override
+			public int size() {
+				return ChunkedByteKeyMap.this.size();
+			}
+
+		};
+	}
+
+	public Map<byte[], V> prefixMap(byte[] prefix) {
+		if (prefix == null) {
+			throw new NullPointerException();
+		}
+		return new PrefixMap(prefix.clone());
+	}
+
+	public Map<byte[], V> prefixMap(String prefix) {
+		return prefixMap(ByteKeys.of(prefix));
+	}
+
+	private Chunk<V> chunkOf(byte[] key) {
+		if (key == null) {
+			throw new NullPointerException();
+		}
+		while (true) {
+			Map.Entry<byte[], Chunk<V>> entry = index.floorEntry(key);
+			Chunk<V> chunk = (entry == null) ? headChunk.get() : entry.getValue();
+			State<V> state = chunk.state.get();
+			if (!state.frozen) {
+				return chunk;
+			}
+			help(chunk, state);
+		}
+	}
+
+	private Chunk<V> nextChunk(Chunk<V> chunk) {
+		Map.Entry<byte[], Chunk<V>> entry = (chunk.fence == null) ? index.firstEntry() : index.higherEntry(chunk.fence);
+		return (entry == null) ? null : entry.getValue();
+	}
+
+	private void help(Chunk<V> chunk, State<V> state) {
+		if (state.right != null) {
+			index.putIfAbsent(state.right.fence, state.right);
+		}
+		if (chunk.fence == null) {
+			headChunk.compareAndSet(chunk, state.left);
+		} else if (state.left != null) {
+			index.replace(chunk.fence, chunk, state.left);
+		} else {
+			index.remove(chunk.fence, chunk);
+		}
+	}
+
+	private class PrefixMap extends AbstractMap<byte[], V> {
+
+		private final byte[] prefix;
+
+		public PrefixMap(byte[] prefix) {
+			this.prefix = prefix;
+		}
+
+		@Override
+		public V get(Object key) {
+			return ByteKeys.startsWith((byte[]) key, prefix) ? ChunkedByteKeyMap.this.get(key) : null;
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return (get(key) != null);
+		}
+
+		@Override
+		public V put(byte[] key, V value) {
+			if (!ByteKeys.startsWith(key, prefix)) {
+				throw new IllegalArgumentException();
+			}
+			return ChunkedByteKeyMap.this.put(key, value);
+		}
+
+		@Override
+		public V remove(Object key) {
+			return ByteKeys.startsWith((byte[]) key, prefix) ? ChunkedByteKeyMap.this.remove(key) : null;
+		}
+
+		@Override
+		public Set<Map.Entry<byte[], V>> entrySet() {
+			return new AbstractSet<Map.Entry<byte[], V>>() {
+
+				@Override
+				public Iterator<Map.Entry<byte[], V>> iterator() {
+					return new ChunkIterator(prefix);
+				}
+
+				@Override
+				public int size() {
+					int count = 0;
+					for (Iterator<Map.Entry<byte[], V>> iterator = iterator(); iterator.hasNext(); iterator.next()) {
+						count++;
+					}
+					return count;
+				}
+
+			};
+		}
+
+	}
+
+	private class ChunkIterator implements Iterator<Map.Entry<byte[], V>> {
+
+		private final byte[] prefix;
+		private Chunk<V> chunk;
+		private State<V> state;
+		private int position;
+		private boolean matching;
+		private byte[] lastKey;
+		private boolean canRemove;
+
+		public ChunkIterator(byte[] prefix) {
+			this.prefix = prefix;
+			chunk = chunkOf(prefix);
+			state = chunk.state.get();
+			position = state.search(prefix);
+			position = (position >= 0) ? position : -position - 1;
+			matching = state.startsWith(prefix);
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (chunk == null) {
+				return false;
+			}
+			while (position == state.size()) {
+				chunk = nextChunk(chunk);
+				if ((chunk == null) || (!ByteKeys.startsWith(chunk.fence, prefix)
+						&& (ByteKeys.compare(chunk.fence, 0, prefix, 0) > 0))) {
+					chunk = null;
+					return false;
+				}
+				state = chunk.state.get();
+				if (lastKey == null) {
+					position = state.search(prefix);
+					position = (position >= 0) ? position : -position - 1;
+				} else {
+					position = state.search(lastKey);
+					position = (position >= 0) ? position + 1 : -position - 1;
+				}
+				matching = state.startsWith(prefix);
+			}
+			if (!matching && !ByteKeys.startsWith(state.keyAt(position), prefix)) {
+				chunk = null;
+				return false;
+			}
+			return true;
+		}
+
+		@Override
+		public Map.Entry<byte[], V> next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			canRemove = true;
+			lastKey = state.keyAt(position);
+			return new AbstractMap.SimpleImmutableEntry<>(lastKey.clone(), state.valueAt(position++));
+		}
+
+		@Override
+		public void remove() {
+			if (!canRemove) {
+				throw new IllegalStateException();
+			}
+			canRemove = false;
+			ChunkedByteKeyMap.this.remove(lastKey);
+		}
+
+	}
+
+	private static class Chunk<V> {
+
+		private final byte[] fence;
+		private final AtomicReference<State<V>> state;
+
+		public Chunk(byte[] fence, State<V> state) {
+			this.fence = fence;
+			this.state = new AtomicReference<>(state);
+		}
+
+	}
+
+	private static class State<V> {
+
+		private final byte[] prefix;
+		private final byte[][] suffixes;
+		private final Object[] values;
+		private final boolean frozen;
+		private final Chunk<V> left;
+		private final Chunk<V> right;
+
+		public State(byte[] prefix, byte[][] suffixes, Object[] values) {
+			this(prefix, suffixes, values, false, null, null);
+		}
+
+		private State(byte[] prefix, byte[][] suffixes, Object[] values, boolean frozen, Chunk<V> left, Chunk<V> right) {
+			this.prefix = prefix;
+			this.suffixes = suffixes;
+			this.values = values;
+			this.frozen = frozen;
+			this.left = left;
+			this.right = right;
+		}
+
+		public int size() {
+			return suffixes.length;
+		}
+
+		public byte[] keyAt(int position) {
+			byte[] suffix = suffixes[position];
+			byte[] key = Arrays.copyOf(prefix, prefix.length + suffix.length);
+			System.arraycopy(suffix, 0, key, prefix.length, suffix.length);
+			return key;
+		}
+
+		@SuppressWarnings("unchecked")
+		public V valueAt(int position) {
+			return (V) values[position];
+		}
+
+		public boolean startsWith(byte[] keyPrefix) {
+			return (suffixes.length > 0) && ByteKeys.startsWith(prefix, keyPrefix);
+		}
+
+		public int search(byte[] key) {
+			int index = ByteKeys.mismatch(prefix, key);
+			if ((index >= 0) && (index < prefix.length)) {
+				return ((index == key.length) || ((key[index] & 0xff) < (prefix[index] & 0xff))) ? -1 : -(suffixes.length + 1);
+			}
+			int low = 0;
+			int high = suffixes.length - 1;
+			while (low <= high) {
+				int middle = (low + high) >>> 1;
+				int compare = ByteKeys.compare(suffixes[middle], 0, key, prefix.length);
+				if (compare < 0) {
+					low = middle + 1;
+				} else if (compare > 0) {
+					high = middle - 1;
+				} else {
+					return middle;
+				}
+			}
+			return -(low + 1);
+		}
+
+		public State<V> insert(int position, byte[] key, V value) {
+			if (suffixes.length == 0) {
+				return new State<>(key.clone(), new byte[][] { EMPTY }, new Object[] { value });
+			}
+			int prefixLength = Math.min(prefix.length, ByteKeys.commonPrefixLength(prefix, key));
+			byte[][] insertedSuffixes = new byte[suffixes.length + 1][];
+			for (int index = 0; index < suffixes.length; index++) {
+				insertedSuffixes[(index < position) ? index : index + 1] = extend(suffixes[index], prefixLength);
+			}
+			insertedSuffixes[position] = Arrays.copyOfRange(key, prefixLength, key.length);
+			Object[] insertedValues = new Object[values.length + 1];
+			System.arraycopy(values, 0, insertedValues, 0, position);
+			insertedValues[position] = value;
+			System.arraycopy(values, position, insertedValues, position + 1, values.length - position);
+			return new State<>((prefixLength == prefix.length) ? prefix : Arrays.copyOf(key, prefixLength)
+					, insertedSuffixes, insertedValues);
+		}
+
+		public State<V> remove(int position) {
+			byte[][] removedSuffixes = new byte[suffixes.length - 1][];
+			System.arraycopy(suffixes, 0, removedSuffixes, 0, position);
+			System.arraycopy(suffixes, position + 1, removedSuffixes, position, removedSuffixes.length - position);
+			Object[] removedValues = new Object[values.length - 1];
+			System.arraycopy(values, 0, removedValues, 0, position);
+			System.arraycopy(values, position + 1, removedValues, position, removedValues.length - position);
+			return new State<>(prefix, removedSuffixes, removedValues);
+		}
+
+		public State<V> replace(int position, V value) {
+			Object[] replacedValues = values.clone();
+			replacedValues[position] = value;
+			return new State<>(prefix, suffixes, replacedValues);
+		}
+
+		public State<V> slice(int from, int to) {
+			int extraLength = ByteKeys.commonPrefixLength(suffixes[from], suffixes[to - 1]);
+			byte[] slicedPrefix = prefix;
+			if (extraLength > 0) {
+				slicedPrefix = Arrays.copyOf(prefix, prefix.length + extraLength);
+				System.arraycopy(suffixes[from], 0, slicedPrefix, prefix.length, extraLength);
+			}
+			byte[][] slicedSuffixes = new byte[to - from][];
+			for (int index = from; index < to; index++) {
+				byte[] suffix = suffixes[index];
+				slicedSuffixes[index - from] = (extraLength == 0) ? suffix : Arrays.copyOfRange(suffix, extraLength, suffix.length);
+			}
+			return new State<>(slicedPrefix, slicedSuffixes, Arrays.copyOfRange(values, from, to));
+		}
+
+		public State<V> freeze(Chunk<V> left, Chunk<V> right) {
+			return new State<>(prefix, suffixes, values, true, left, right);
+		}
+
+		private byte[] extend(byte[] suffix, int prefixLength) {
+			if (prefixLength == prefix.length) {
+				return suffix;
+			}
+			byte[] extended = Arrays.copyOfRange(prefix, prefixLength, prefix.length + suffix.length);
+			System.arraycopy(suffix, 0, extended, prefix.length - prefixLength, suffix.length);
+			return extended;
+		}
+
+	}
+
+}
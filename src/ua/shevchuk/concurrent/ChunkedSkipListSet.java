@@ -0,0 +1,489 @@
+package ua.shevchuk.concurrent;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+public class ChunkedSkipListSet<E> extends AbstractConcurrentSet<E> {
+
+	private static final int MAXIMUM_CHUNK_SIZE = 64;
+	private static final int CHARACTERISTICS = Spliterator.ORDERED | Spliterator.SORTED | Spliterator.DISTINCT
+			| Spliterator.NONNULL | Spliterator.CONCURRENT;
+
+	private final Comparator<? super E> comparator;
+	private final ConcurrentSkipListMap<E, Chunk<E>> index;
+	private final AtomicReference<Chunk<E>> headChunk;
+	private final AtomicInteger size;
+
+	public ChunkedSkipListSet() {
+		this(null);
+	}
+
+	public ChunkedSkipListSet(Comparator<? super E> comparator) {
+		this.comparator = comparator;
+		index = new ConcurrentSkipListMap<>(comparator);
+		headChunk = new AtomicReference<>(new Chunk<>(null, new Object[0]));
+		size = new AtomicInteger();
+	}
+
+	public Comparator<? super E> comparator() {
+		return comparator;
+	}
+
+	@Override
+	public boolean add(E item) {
+		if (item == null) {
+			throw new NullPointerException();
+		}
+		while (true) {
+			Chunk<E> chunk = chunkOf(item);
+			State<E> state = chunk.state.get();
+			if (state.frozen) {
+				help(chunk, state);
+				continue;
+			}
+			int position = search(state.items, item);
+			if (position >= 0) {
+				return false;
+			}
+			position = -position - 1;
+			Object[] items = new Object[state.items.length + 1];
+			System.arraycopy(state.items, 0, items, 0, position);
+			items[position] = item;
+			System.arraycopy(state.items, position, items, position + 1, state.items.length - position);
+			if (items.length <= MAXIMUM_CHUNK_SIZE) {
+				size.incrementAndGet();
+				if (chunk.state.compareAndSet(state, new State<>(items))) {
+					return true;
+				}
+				size.decrementAndGet();
+			} else {
+				int half = items.length >>> 1;
+				@SuppressWarnings("unchecked")
+				State<E> frozenState = new State<>(items, new Chunk<>(chunk.fence, Arrays.copyOf(items, half))
+						, new Chunk<>((E) items[half], Arrays.copyOfRange(items, half, items.length)));
+				size.incrementAndGet();
+				if (chunk.state.compareAndSet(state, frozenState)) {
+					help(chunk, frozenState);
+					return true;
+				}
+				size.decrementAndGet();
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public boolean remove(Object item) {
+		if (item == null) {
+			throw new NullPointerException();
+		}
+		while (true) {
+			Chunk<E> chunk = chunkOf((E) item);
+			State<E> state = chunk.state.get();
+			if (state.frozen) {
+				help(chunk, state);
+				continue;
+			}
+			int position = search(state.items, (E) item);
+			if (position < 0) {
+				return false;
+			}
+			Object[] items = new Object[state.items.length - 1];
+			System.arraycopy(state.items, 0, items, 0, position);
+			System.arraycopy(state.items, position + 1, items, position, items.length - position);
+			State<E> updatedState = ((items.length == 0) && (chunk.fence != null))
+					? new State<>(items, null, null) : new State<>(items);
+			if (chunk.state.compareAndSet(state, updatedState)) {
+				size.decrementAndGet();
+				if (updatedState.frozen) {
+					help(chunk, updatedState);
+				}
+				return true;
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public boolean contains(Object item) {
+		if (item == null) {
+			throw new NullPointerException();
+		}
+		return (search(chunkOf((E) item).state.get().items, (E) item) >= 0);
+	}
+
+	public E ceiling(E item) {
+		return find(item, true, true);
+	}
+
+	public E higher(E item) {
+		return find(item, false, true);
+	}
+
+	public E floor(E item) {
+		return find(item, true, false);
+	}
+
+	public E lower(E item) {
+		return find(item, false, false);
+	}
+
+	public E first() {
+		Chunk<E> chunk = headChunk.get();
+		while (chunk != null) {
+			Object[] items = chunk.state.get().items;
+			if (items.length > 0) {
+				return itemAt(items, 0);
+			}
+			chunk = nextChunk(chunk);
+		}
+		throw new NoSuchElementException();
+	}
+
+	public E last() {
+		Map.Entry<E, Chunk<E>> entry = index.lastEntry();
+		while (entry != null) {
+			Object[] items = entry.getValue().state.get().items;
+			if (items.length > 0) {
+				return itemAt(items, items.length - 1);
+			}
+			entry = index.lowerEntry(entry.getKey());
+		}
+		Object[] items = headChunk.get().state.get().items;
+		if (items.length > 0) {
+			return itemAt(items, items.length - 1);
+		}
+		throw new NoSuchElementException();
+	}
+
+	public void forEach(E fromItem, boolean fromInclusive, E toItem, boolean toInclusive, Consumer<? super E> action) {
+		if ((fromItem == null) || (toItem == null) || (action == null)) {
+			throw new NullPointerException();
+		}
+		if (compare(fromItem, toItem) > 0) {
+			throw new IllegalArgumentException();
+		}
+		ChunkIterator iterator = new ChunkIterator(fromItem, fromInclusive);
+		while (iterator.hasNext()) {
+			E item = iterator.next();
+			int compare = compare(item, toItem);
+			if ((compare > 0) || ((compare == 0) && !toInclusive)) {
+				return;
+			}
+			action.accept(item);
+		}
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return (size() == 0);
+	}
+
+	@Override
+	public int size() {
+		return size.get();
+	}
+
+	@Override
+	public ConcurrentIterator<E> iterator() {
+		return new ChunkIterator(null, false);
+	}
+
+	@Override
+	public Spliterator<E> spliterator() {
+		return new ChunkSpliterator();
+	}
+
+	private Chunk<E> chunkOf(E item) {
+		while (true) {
+			Map.Entry<E, Chunk<E>> entry = index.floorEntry(item);
+			Chunk<E> chunk = (entry == null) ? headChunk.get() : entry.getValue();
+			State<E> state = chunk.state.get();
+			if (!state.frozen) {
+				return chunk;
+			}
+			help(chunk, state);
+		}
+	}
+
+	private Chunk<E> nextChunk(Chunk<E> chunk) {
+		Map.Entry<E, Chunk<E>> entry = (chunk.fence == null) ? index.firstEntry() : index.higherEntry(chunk.fence);
+		return (entry == null) ? null : entry.getValue();
+	}
+
+	private void help(Chunk<E> chunk, State<E> state) {
+		if (state.right != null) {
+			index.putIfAbsent(state.right.fence, state.right);
+		}
+		if (chunk.fence == null) {
+			headChunk.compareAndSet(chunk, state.left);
+		} else if (state.left != null) {
+			index.replace(chunk.fence, chunk, state.left);
+		} else {
+			index.remove(chunk.fence, chunk);
+		}
+	}
+
+	private E find(E item, boolean inclusive, boolean ascending) {
+		if (item == null) {
+			throw new NullPointerException();
+		}
+		Chunk<E> chunk = chunkOf(item);
+		E fence = chunk.fence;
+		while (true) {
+			Object[] items = chunk.state.get().items;
+			int position = search(items, item);
+			if (position >= 0) {
+				if (inclusive) {
+					return itemAt(items, position);
+				}
+				position = ascending ? position + 1 : position - 1;
+			} else {
+				position = ascending ? -position - 1 : -position - 2;
+			}
+			if ((position >= 0) && (position < items.length)) {
+				return itemAt(items, position);
+			}
+			Map.Entry<E, Chunk<E>> entry;
+			if (ascending) {
+				entry = (fence == null) ? index.firstEntry() : index.higherEntry(fence);
+			} else {
+				if (fence == null) {
+					return null;
+				}
+				entry = index.lowerEntry(fence);
+			}
+			if (entry == null) {
+				if (ascending) {
+					return null;
+				}
+				chunk = headChunk.get();
+				fence = null;
+			} else {
+				chunk = entry.getValue();
+				fence = entry.getKey();
+			}
+		}
+	}
+
+	private int search(Object[] items, E item) {
+		int low = 0;
+		int high = items.length - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int compare = compare(itemAt(items, middle), item);
+			if (compare < 0) {
+				low = middle + 1;
+			} else if (compare > 0) {
+				high = middle - 1;
+			} else {
+				return middle;
+			}
+		}
+		return -(low + 1);
+	}
+
+	@SuppressWarnings("unchecked")
+	private int compare(E item1, E item2) {
+		return (comparator == null) ? ((Comparable<? super E>) item1).compareTo(item2) : comparator.compare(item1, item2);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <E> E itemAt(Object[] items, int position) {
+		return (E) items[position];
+	}
+
+	private class ChunkIterator implements ConcurrentIterator<E> {
+
+		private Chunk<E> chunk;
+		private Object[] items;
+		private int position;
+		private E lastItem;
+		private boolean canRemove;
+
+		public ChunkIterator(E fromItem, boolean fromInclusive) {
+			if (fromItem == null) {
+				chunk = headChunk.get();
+				items = chunk.state.get().items;
+			} else {
+				chunk = chunkOf(fromItem);
+				items = chunk.state.get().items;
+				position = search(items, fromItem);
+				position = (position >= 0) ? (fromInclusive ? position : position + 1) : -position - 1;
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			while (position == items.length) {
+				if (lastItem == null) {
+					chunk = nextChunk(chunk);
+				} else {
+					Map.Entry<E, Chunk<E>> entry = index.higherEntry(lastItem);
+					chunk = (entry == null) ? null : entry.getValue();
+				}
+				if (chunk == null) {
+					return false;
+				}
+				items = chunk.state.get().items;
+				position = 0;
+			}
+			return true;
+		}
+
+		@Override
+		public E next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			canRemove = true;
+			return (lastItem = itemAt(items, position++));
+		}
+
+		@Override
+		public boolean removeElement() {
+			if (!canRemove) {
+				throw new IllegalStateException();
+			}
+			canRemove = false;
+			return ChunkedSkipListSet.this.remove(lastItem);
+		}
+
+	}
+
+	private class ChunkSpliterator implements Spliterator<E> {
+
+		private final ChunkIterator iterator;
+		private long estimate;
+
+		public ChunkSpliterator() {
+			iterator = new ChunkIterator(null, false);
+			estimate = size();
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super E> action) {
+			if (!iterator.hasNext()) {
+				return false;
+			}
+			action.accept(iterator.next());
+			if (estimate > 0) {
+				estimate--;
+			}
+			return true;
+		}
+
+		@Override
+		public Spliterator<E> trySplit() {
+			if (!iterator.hasNext()) {
+				return null;
+			}
+			Spliterator<E> prefix = new PrefixSpliterator(Spliterators.spliterator(iterator.items, iterator.position
+					, iterator.items.length, CHARACTERISTICS & ~Spliterator.CONCURRENT));
+			estimate = Math.max(estimate - prefix.estimateSize(), 0);
+			iterator.position = iterator.items.length;
+			iterator.lastItem = itemAt(iterator.items, iterator.items.length - 1);
+			return prefix;
+		}
+
+		@Override
+		public long estimateSize() {
+			return estimate;
+		}
+
+		@Override
+		public int characteristics() {
+			return CHARACTERISTICS;
+		}
+
+		@Override
+		public Comparator<? super E> getComparator() {
+			return comparator;
+		}
+
+	}
+
+	private class PrefixSpliterator implements Spliterator<E> {
+
+		private final Spliterator<E> items;
+
+		public PrefixSpliterator(Spliterator<E> items) {
+			this.items = items;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super E> action) {
+			return items.tryAdvance(action);
+		}
+
+		@Override
+		public void forEachRemaining(Consumer<? super E> action) {
+			items.forEachRemaining(action);
+		}
+
+		@Override
+		public Spliterator<E> trySplit() {
+			Spliterator<E> prefix = items.trySplit();
+			return (prefix == null) ? null : new PrefixSpliterator(prefix);
+		}
+
+		@Override
+		public long estimateSize() {
+			return items.estimateSize();
+		}
+
+		@Override
+		public int characteristics() {
+			return items.characteristics();
+		}
+
+		@Override
+		public Comparator<? super E> getComparator() {
+			return comparator;
+		}
+
+	}
+
+	private static class Chunk<E> {
+
+		private final E fence;
+		private final AtomicReference<State<E>> state;
+
+		public Chunk(E fence, Object[] items) {
+			this.fence = fence;
+			state = new AtomicReference<>(new State<>(items));
+		}
+
+	}
+
+	private static class State<E> {
+
+		private final Object[] items;
+		private final boolean frozen;
+		private final Chunk<E> left;
+		private final Chunk<E> right;
+
+		public State(Object[] items) {
+			this.items = items;
+			frozen = false;
+			left = null;
+			right = null;
+		}
+
+		public State(Object[] items, Chunk<E> left, Chunk<E> right) {
+			this.items = items;
+			frozen = true;
+			this.left = left;
+			this.right = right;
+		}
+
+	}
+
+}
@@ -0,0 +1,116 @@
+package ua.shevchuk.concurrent;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+public interface Codec<T> {
+
+	byte[] encode(T value);
+
+	T decode(ByteBuffer buffer);
+
+	static Codec<byte[]> ofBytes() {
+		return new Codec<byte[]>() {
+
+			@Override
+			public byte[] encode(byte[] value) {
+				return value;
+			}
+
+			@Override
+			public byte[] decode(ByteBuffer buffer) {
+				byte[] value = new byte[buffer.remaining()];
+				buffer.get(value);
+				return value;
+			}
+
+		};
+	}
+
+	static Codec<String> ofString() {
+		return new Codec<String>() {
+
+			@Override
+			public byte[] encode(String value) {
+				return value.getBytes(StandardCharsets.UTF_8);
+			}
+
+			@Override
+			public String decode(ByteBuffer buffer) {
+				return StandardCharsets.UTF_8.decode(buffer).toString();
+			}
+
+		};
+	}
+
+	static Codec<Long> ofLong() {
+		return new Codec<Long>() {
+
+			@Override
+			public byte[] encode(Long value) {
+				return ByteBuffer.allocate(Long.BYTES).putLong(value).array();
+			}
+
+			@Override
+			public Long decode(ByteBuffer buffer) {
+				return buffer.getLong();
+			}
+
+		};
+	}
+
+	static Codec<Integer> ofInteger() {
+		return new Codec<Integer>() {
+
+			@Override
+			public byte[] encode(Integer value) {
+				return ByteBuffer.allocate(Integer.BYTES).putInt(value).array();
+			}
+
+			@Override
+			public Integer decode(ByteBuffer buffer) {
+				return buffer.getInt();
+			}
+
+		};
+	}
+
+	static <T extends Serializable> Codec<T> ofSerializable() {
+		return new Codec<T>() {
+
+			@Override
+			public byte[] encode(T value) {
+				ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+				try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+					output.writeObject(value);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+				return bytes.toByteArray();
+			}
+
+			@SuppressWarnings("unchecked")
+			@Override
+			public T decode(ByteBuffer buffer) {
+				byte[] value = new byte[buffer.remaining()];
+				buffer.get(value);
+				try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(value))) {
+					return (T) input.readObject();
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				} catch (ClassNotFoundException e) {
+					throw new IllegalStateException(e);
+				}
+			}
+
+		};
+	}
+
+}
@@ -9,5 +9,13 @@ public interface ConcurrentIterator<E> extends Iterator<E> {
 	default void remove () {
 		removeElement();
 	}
+
+	default int nextBatch(E[] batch) {
+		int count = 0;
+		while ((count < batch.length) && hasNext()) {
+			batch[count++] = next();
+		}
+		return count;
+	}
 	
 }
@@ -0,0 +1,368 @@
+package ua.shevchuk.concurrent;
+
+import java.util.AbstractMap;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.ToIntBiFunction;
+
+public class ConcurrentSkipListCache<K, V> {
+
+	public enum Eviction {
+		LRU, LFU
+	}
+
+	private static final int EVICTION_BATCH = 4;
+	private static final int SAMPLE_SIZE = 8;
+	private static final long NEVER = Long.MAX_VALUE;
+
+	private final ConcurrentSkipListMap<K, Item<K, V>> root;
+	private final ConcurrentSkipListMap<K, Item<K, V>> map;
+	private final ConcurrentSkipListSet<Item<K, V>> expiryIndex;
+	private final ConcurrentSkipListSet<Ticket<K, V>> evictionIndex;
+	private final AtomicLong sequence;
+	private final AtomicLong weight;
+
+	private final long maximumWeight;
+	private final ToIntBiFunction<? super K, ? super V> weigher;
+	private final long timeToLive;
+	private final Eviction eviction;
+
+	public ConcurrentSkipListCache(long maximumSize) {
+		this(null, maximumSize, 0, TimeUnit.NANOSECONDS, Eviction.LRU);
+	}
+
+	public ConcurrentSkipListCache(Comparator<? super K> comparator, long maximumSize
+			, long timeToLive, TimeUnit unit, Eviction eviction) {
+		this(comparator, maximumSize, (key, value) -> 1, timeToLive, unit, eviction);
+	}
+
+	public ConcurrentSkipListCache(Comparator<? super K> comparator, long maximumWeight
+			, ToIntBiFunction<? super K, ? super V> weigher, long timeToLive, TimeUnit unit, Eviction eviction) {
+		if ((weigher == null) || (unit == null) || (eviction == null)) {
+			throw new NullPointerException();
+		}
+		if ((maximumWeight < 0) || (timeToLive < 0)) {
+			throw new IllegalArgumentException();
+		}
+		root = new ConcurrentSkipListMap<>(comparator);
+		map = root;
+		expiryIndex = new ConcurrentSkipListSet<>((item1, item2) -> (item1.deadline == item2.deadline)
+				? Long.compare(item1.stamp, item2.stamp) : Long.signum(item1.deadline - item2.deadline));
+		evictionIndex = new ConcurrentSkipListSet<>((ticket1, ticket2) -> Long.compare(ticket1.stamp, ticket2.stamp));
+		sequence = new AtomicLong();
+		weight = new AtomicLong();
+
+		this.maximumWeight = maximumWeight;
+		this.weigher = weigher;
+		this.timeToLive = unit.toNanos(timeToLive);
+		this.eviction = eviction;
+	}
+
+	private ConcurrentSkipListCache(ConcurrentSkipListCache<K, V> cache, ConcurrentNavigableMap<K, Item<K, V>> map) {
+		root = cache.root;
+		this.map = (ConcurrentSkipListMap<K, Item<K, V>>) map;
+		expiryIndex = cache.expiryIndex;
+		evictionIndex = cache.evictionIndex;
+		sequence = cache.sequence;
+		weight = cache.weight;
+
+		maximumWeight = cache.maximumWeight;
+		weigher = cache.weigher;
+		timeToLive = cache.timeToLive;
+		eviction = cache.eviction;
+	}
+
+	public V get(K key) {
+		Item<K, V> item = live(map.get(key), System.nanoTime());
+		if (item == null) {
+			return null;
+		}
+		touch(item);
+		return item.value;
+	}
+
+	public boolean containsKey(K key) {
+		return (live(map.get(key), System.nanoTime()) != null);
+	}
+
+	public V put(K key, V value) {
+		return put(key, value, timeToLive, TimeUnit.NANOSECONDS);
+	}
+
+	public V put(K key, V value, long timeToLive, TimeUnit unit) {
+		if ((key == null) || (value == null)) {
+			throw new NullPointerException();
+		}
+		if (!map.inRange(key)) {
+			throw new IllegalArgumentException();
+		}
+		long now = System.nanoTime();
+		long ttl = unit.toNanos(timeToLive);
+		long stamp = sequence.incrementAndGet();
+		Item<K, V> item = new Item<>(key, value, weigher.applyAsInt(key, value), (ttl > 0) ? now + ttl : NEVER, stamp);
+		weight.addAndGet(item.weight);
+		if (item.deadline != NEVER) {
+			expiryIndex.add(item);
+		}
+		evictionIndex.add(item.ticket.get());
+		Item<K, V> previous = map.put(key, item);
+		V result = null;
+		if (previous != null) {
+			unindex(previous);
+			if (!previous.isExpired(now)) {
+				result = previous.value;
+			}
+		}
+		cleanUp();
+		return result;
+	}
+
+	public V remove(K key) {
+		Item<K, V> item = map.remove(key);
+		if (item == null) {
+			return null;
+		}
+		unindex(item);
+		return item.isExpired(System.nanoTime()) ? null : item.value;
+	}
+
+	public void clear() {
+		for (Item<K, V> item : map.values()) {
+			discard(item);
+		}
+	}
+
+	public Map.Entry<K, V> ceilingEntry(K key) {
+		return entryOf(live(map.ceilingEntry(key), true));
+	}
+
+	public Map.Entry<K, V> floorEntry(K key) {
+		return entryOf(live(map.floorEntry(key), false));
+	}
+
+	public Map.Entry<K, V> higherEntry(K key) {
+		return entryOf(live(map.higherEntry(key), true));
+	}
+
+	public Map.Entry<K, V> lowerEntry(K key) {
+		return entryOf(live(map.lowerEntry(key), false));
+	}
+
+	public Map.Entry<K, V> firstEntry() {
+		return entryOf(live(map.firstEntry(), true));
+	}
+
+	public Map.Entry<K, V> lastEntry() {
+		return entryOf(live(map.lastEntry(), false));
+	}
+
+	public ConcurrentSkipListCache<K, V> subMap(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+		return new ConcurrentSkipListCache<>(this, map.subMap(fromKey, fromInclusive, toKey, toInclusive));
+	}
+
+	public ConcurrentSkipListCache<K, V> headMap(K toKey, boolean toInclusive) {
+		return new ConcurrentSkipListCache<>(this, map.headMap(toKey, toInclusive));
+	}
+
+	public ConcurrentSkipListCache<K, V> tailMap(K fromKey, boolean fromInclusive) {
+		return new ConcurrentSkipListCache<>(this, map.tailMap(fromKey, fromInclusive));
+	}
+
+	public ConcurrentSkipListCache<K, V> descendingMap() {
+		return new ConcurrentSkipListCache<>(this, map.descendingMap());
+	}
+
+	public void forEach(BiConsumer<? super K, ? super V> action) {
+		long now = System.nanoTime();
+		for (Item<K, V> item : map.values()) {
+			if (live(item, now) != null) {
+				action.accept(item.key, item.value);
+			}
+		}
+	}
+
+	public boolean isEmpty() {
+		return (firstEntry() == null);
+	}
+
+	public int size() {
+		long now = System.nanoTime();
+		Item<K, V> item = expiryIndex.lowest();
+		if ((item == null) || !item.isExpired(now)) {
+			return map.size();
+		}
+		int size = 0;
+		for (Item<K, V> value : map.values()) {
+			if (live(value, now) != null) {
+				size++;
+			}
+		}
+		return size;
+	}
+
+	public long weight() {
+		return weight.get();
+	}
+
+	public void cleanUp() {
+		long now = System.nanoTime();
+		for (int count = 0; count < EVICTION_BATCH; count++) {
+			Item<K, V> item = expiryIndex.lowest();
+			if ((item == null) || !item.isExpired(now)) {
+				break;
+			}
+			if (expiryIndex.remove(item) && !discard(item)) {
+				restore(expiryIndex, item, item);
+				break;
+			}
+		}
+		for (int count = 0; (count < EVICTION_BATCH) && (weight.get() > maximumWeight); count++) {
+			Ticket<K, V> ticket = (eviction == Eviction.LRU) ? evictionIndex.pollFirst() : sample();
+			if (ticket == null) {
+				break;
+			}
+			if ((ticket.item.ticket.get() == ticket) && !discard(ticket.item)) {
+				restore(evictionIndex, ticket, ticket.item);
+				break;
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder("{");
+		forEach((key, value) -> builder.append(", ").append(key).append("=").append(value));
+		return builder.delete(1, 3).append("}").toString();
+	}
+
+	private void touch(Item<K, V> item) {
+		if (eviction == Eviction.LFU) {
+			if (item.frequency.get() < Integer.MAX_VALUE) {
+				item.frequency.incrementAndGet();
+			}
+			return;
+		}
+		Ticket<K, V> ticket = item.ticket.get();
+		Ticket<K, V> renewed = new Ticket<>(item, sequence.incrementAndGet());
+		if (item.ticket.compareAndSet(ticket, renewed)) {
+			evictionIndex.add(renewed);
+			evictionIndex.remove(ticket);
+		}
+	}
+
+	private Ticket<K, V> sample() {
+		Ticket<K, V> victim = null;
+		ConcurrentIterator<Ticket<K, V>> iterator = evictionIndex.iterator();
+		for (int count = 0; (count < SAMPLE_SIZE) && iterator.hasNext(); count++) {
+			Ticket<K, V> ticket = iterator.next();
+			if (ticket.item.ticket.get() != ticket) {
+				evictionIndex.remove(ticket);
+			} else if (victim == null) {
+				victim = ticket;
+			} else if (ticket.item.frequency.get() < victim.item.frequency.get()) {
+				victim.item.frequency.set(victim.item.frequency.get() >>> 1);
+				victim = ticket;
+			} else {
+				ticket.item.frequency.set(ticket.item.frequency.get() >>> 1);
+			}
+		}
+		return ((victim != null) && evictionIndex.remove(victim)) ? victim : null;
+	}
+
+	private boolean discard(Item<K, V> item) {
+		if (root.remove(item.key, item)) {
+			unindex(item);
+			return true;
+		}
+		return false;
+	}
+
+	private <T> void restore(ConcurrentSkipListSet<T> index, T entry, Item<K, V> item) {
+		index.add(entry);
+		if (!item.indexed.get()) {
+			index.remove(entry);
+		}
+	}
+
+	private void unindex(Item<K, V> item) {
+		if (!item.indexed.compareAndSet(true, false)) {
+			return;
+		}
+		weight.addAndGet(-item.weight);
+		if (item.deadline != NEVER) {
+			expiryIndex.remove(item);
+		}
+		evictionIndex.remove(item.ticket.get());
+	}
+
+	private Item<K, V> live(Item<K, V> item, long now) {
+		if ((item != null) && item.isExpired(now)) {
+			discard(item);
+			return null;
+		}
+		return item;
+	}
+
+	private Map.Entry<K, Item<K, V>> live(Map.Entry<K, Item<K, V>> entry, boolean ascending) {
+		long now = System.nanoTime();
+		while ((entry != null) && (live(entry.getValue(), now) == null)) {
+			entry = ascending ? map.higherEntry(entry.getKey()) : map.lowerEntry(entry.getKey());
+		}
+		return entry;
+	}
+
+	private Map.Entry<K, V> entryOf(Map.Entry<K, Item<K, V>> entry) {
+		return (entry == null) ? null : new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), entry.getValue().value);
+	}
+
+	private static class Item<K, V> {
+
+		private final K key;
+		private final V value;
+		private final int weight;
+		private final long deadline;
+		private final long stamp;
+		private final AtomicInteger frequency;
+		private final AtomicReference<Ticket<K, V>> ticket;
+		private final AtomicBoolean indexed;
+
+		public Item(K key, V value, int weight, long deadline, long stamp) {
+			if (weight < 0) {
+				throw new IllegalArgumentException();
+			}
+			this.key = key;
+			this.value = value;
+			this.weight = weight;
+			this.deadline = deadline;
+			this.stamp = stamp;
+			frequency = new AtomicInteger();
+			ticket = new AtomicReference<>(new Ticket<>(this, stamp));
+			indexed = new AtomicBoolean(true);
+		}
+
+		public boolean isExpired(long now) {
+			return (deadline != NEVER) && (now - deadline >= 0);
+		}
+
+	}
+
+	private static class Ticket<K, V> {
+
+		private final Item<K, V> item;
+		private final long stamp;
+
+		public Ticket(Item<K, V> item, long stamp) {
+			this.item = item;
+			this.stamp = stamp;
+		}
+
+	}
+
+}
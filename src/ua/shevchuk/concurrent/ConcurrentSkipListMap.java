@@ -1,49 +1,185 @@
 package ua.shevchuk.concurrent;
 
 import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.RandomAccess;
 import java.util.Set;
 import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.Spliterator;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicMarkableReference;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.LongBinaryOperator;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongBiFunction;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
 
 public class ConcurrentSkipListMap<K, V> implements ConcurrentNavigableMap<K, V>, Cloneable, Serializable {
 
 	private static final long serialVersionUID = -1977164380894719245L;
+	private static final int PARALLELISM = 4 * ForkJoinPool.getCommonPoolParallelism();
 	
 	private final Comparator<? super K> comparator;
 	private final ConcurrentSkipListSet<Map.Entry<K, V>> set;
+	private final RangeAggregator<? super V, ?> aggregator;
+	private final WriteAheadLog<K, V> log;
+	private final AtomicReference<ChangeFeed<K, V>> feed;
+	private final MembershipFilter filter;
+	private final ToIntFunction<? super K> hasher;
 
 	public ConcurrentSkipListMap() {
 		comparator = null;
 		set = new ConcurrentSkipListSet<>();
+		aggregator = null;
+		log = null;
+		feed = new AtomicReference<>();
+		filter = null;
+		hasher = null;
+		set.claimOnRemove(this::claim);
+		set.showIf(Entry::isPresent);
 	}
 
 	public ConcurrentSkipListMap(Comparator<? super K> comparator) {
+		this(comparator, null);
+	}
+
+	public ConcurrentSkipListMap(Comparator<? super K> comparator, RangeAggregator<? super V, ?> aggregator) {
+		this(comparator, aggregator, null);
+	}
+
+	public ConcurrentSkipListMap(Comparator<? super K> comparator, RangeAggregator<? super V, ?> aggregator
+			, Abbreviator<? super K> abbreviator) {
+		this(comparator, aggregator, abbreviator, null);
+	}
+
+	public ConcurrentSkipListMap(Comparator<? super K> comparator, RangeAggregator<? super V, ?> aggregator
+			, Abbreviator<? super K> abbreviator, MembershipFilter filter) {
+		this(comparator, aggregator, abbreviator, filter, (ContentionPolicy) null);
+	}
+
+	public ConcurrentSkipListMap(Comparator<? super K> comparator, RangeAggregator<? super V, ?> aggregator
+			, Abbreviator<? super K> abbreviator, MembershipFilter filter, ContentionPolicy contention) {
+		this(comparator, aggregator, abbreviator, filter, (comparator == null) ? MembershipFilter::naturalHash : null
+				, contention);
+	}
+
+	public ConcurrentSkipListMap(Comparator<? super K> comparator, RangeAggregator<? super V, ?> aggregator
+			, Abbreviator<? super K> abbreviator, MembershipFilter filter, ToIntFunction<? super K> hasher
+			, ContentionPolicy contention) {
 		this.comparator = comparator;
-		set = new ConcurrentSkipListSet<>(new EntryComparator<K, V>(comparator));
+		set = new ConcurrentSkipListSet<>((comparator == null) ? null : new EntryComparator<K, V>(comparator)
+				, (aggregator == null) ? null : aggregator.<K, V>onValues(Entry::isPresent)
+				, (abbreviator == null) ? null : new KeyAbbreviator<K, V>(abbreviator)
+				, filter, (hasher == null) ? null : entry -> hasher.applyAsInt(entry.getKey()), contention);
+		this.aggregator = aggregator;
+		log = null;
+		feed = new AtomicReference<>();
+		this.filter = (hasher == null) ? null : filter;
+		this.hasher = hasher;
+		set.claimOnRemove(this::claim);
+		set.showIf(Entry::isPresent);
 	}
 
-	@SuppressWarnings("unchecked")
 	public ConcurrentSkipListMap(Map<? extends K, ? extends V> map) {
-		comparator = null;
-		set = new ConcurrentSkipListSet<>((Collection<? extends Map.Entry<K, V>>) map.entrySet());
+		this();
+		putAll(map);
 	}
 
-	@SuppressWarnings("unchecked")
 	public ConcurrentSkipListMap(SortedMap<K, ? extends V> map) {
-		comparator = map.comparator();
-		set = new ConcurrentSkipListSet<>((comparator == null) ? null
-				: new EntryComparator<>(comparator), (Set<? extends Map.Entry<K, V>>) map.entrySet());
+		this(map, null);
+	}
+
+	ConcurrentSkipListMap(SortedMap<K, ? extends V> map, WriteAheadLog<K, V> log) {
+		this(map.comparator(), map.entrySet().iterator(), log);
+	}
+
+	ConcurrentSkipListMap(Comparator<? super K> comparator
+			, Iterator<? extends Map.Entry<? extends K, ? extends V>> iterator, WriteAheadLog<K, V> log) {
+		this.comparator = comparator;
+		set = new ConcurrentSkipListSet<>((comparator == null) ? null : new EntryComparator<K, V>(comparator)
+				, new Iterator<Map.Entry<K, V>>() {
+
+					@Override
+					public boolean hasNext() {
+						return iterator.hasNext();
+					}
+
+					@Override
+					public Map.Entry<K, V> next() {
+						Map.Entry<? extends K, ? extends V> entry = iterator.next();
+						return Entry.newInstance(entry.getKey(), entry.getValue());
+					}
+
+				});
+		aggregator = null;
+		this.log = log;
+		feed = new AtomicReference<>();
+		filter = null;
+		hasher = null;
+		set.claimOnRemove(this::claim);
+		set.showIf(Entry::isPresent);
+		if (log != null) {
+			set.listen(this::changing);
+		}
+	}
+
+	private ConcurrentSkipListMap(Comparator<? super K> comparator, int size
+			, IntFunction<? extends Map.Entry<? extends K, ? extends V>> entries) {
+		this.comparator = comparator;
+		set = new ConcurrentSkipListSet<>((comparator == null) ? null : new EntryComparator<K, V>(comparator), size
+				, index -> {
+					Map.Entry<? extends K, ? extends V> entry = entries.apply(index);
+					return Entry.<K, V>newInstance(entry.getKey(), entry.getValue());
+				});
+		aggregator = null;
+		log = null;
+		feed = new AtomicReference<>();
+		filter = null;
+		hasher = null;
+		set.claimOnRemove(this::claim);
+		set.showIf(Entry::isPresent);
 	}
 
-	private ConcurrentSkipListMap(Comparator<? super K> comparator, NavigableSet<Map.Entry<K, V>> set) {
+	public static <K, V> ConcurrentSkipListMap<K, V> ofSorted(Comparator<? super K> comparator
+			, List<? extends Map.Entry<? extends K, ? extends V>> entries) {
+		List<? extends Map.Entry<? extends K, ? extends V>> randomAccessEntries = (entries instanceof RandomAccess)
+				? entries : new ArrayList<>(entries);
+		return new ConcurrentSkipListMap<>(comparator, randomAccessEntries.size(), randomAccessEntries::get);
+	}
+
+	public static <K, V> ConcurrentSkipListMap<K, V> ofSorted(Comparator<? super K> comparator
+			, Spliterator<? extends Map.Entry<? extends K, ? extends V>> entries) {
+		return ofSorted(comparator, StreamSupport.stream(entries, true).collect(Collectors.toList()));
+	}
+
+	private ConcurrentSkipListMap(ConcurrentSkipListMap<K, V> map, Comparator<? super K> comparator
+			, NavigableSet<Map.Entry<K, V>> set) {
 		this.comparator = comparator;
 		this.set = (ConcurrentSkipListSet<Map.Entry<K, V>>) set;
+		aggregator = map.aggregator;
+		log = map.log;
+		feed = map.feed;
+		filter = map.filter;
+		hasher = map.hasher;
 	}
 
 	@Override
@@ -53,77 +189,254 @@ public class ConcurrentSkipListMap<K, V> implements ConcurrentNavigableMap<K, V>
 
 	@Override
 	public V put(K key, V value) {
-		while (true) {
-			Map.Entry<K, V> entry = set.addOrGet(Entry.newInstance(key, value));
+		return mutate(() -> putValue(null, key, value));
+	}
+
+	private V putValue(ConcurrentSkipListSet<Map.Entry<K, V>>.Finger finger, K key, V value) {
+		for (int attempt = 1;; attempt++) {
+			Map.Entry<K, V> entry = (finger == null) ? set.addOrGet(Entry.newInstance(key, value))
+					: finger.addOrGet(Entry.newInstance(key, value));
 			if (entry == null) {
+				set.contention().onSuccess(attempt - 1);
 				return null;
 			}
-			V oldValue = Entry.setValueOf(entry, value);
+			V oldValue = Entry.setValueOf(entry, value, this);
 			if (oldValue != null) {
+				set.contention().onSuccess(attempt - 1);
+				updated(entry);
 				return oldValue;
 			}
-			Thread.yield();
+			set.contention().onFailure(attempt);
 		}
 	}
 
 	@Override
 	public V putIfAbsent(K key, V value) {
-		return Entry.getValueOf(set.addOrGet(Entry.newInstance(key, value)));
+		return mutate(() -> putValueIfAbsent(null, key, value));
+	}
+
+	private V putValueIfAbsent(ConcurrentSkipListSet<Map.Entry<K, V>>.Finger finger, K key, V value) {
+		for (int attempt = 1;; attempt++) {
+			Map.Entry<K, V> entry = (finger == null) ? set.addOrGet(Entry.newInstance(key, value))
+					: finger.addOrGet(Entry.newInstance(key, value));
+			if (entry == null) {
+				set.contention().onSuccess(attempt - 1);
+				return null;
+			}
+			V oldValue = Entry.settledValueOf(entry, this);
+			if (oldValue != null) {
+				set.contention().onSuccess(attempt - 1);
+				return oldValue;
+			}
+			set.contention().onFailure(attempt);
+		}
 	}
 
 	@Override
 	public void putAll(Map<? extends K, ? extends V> map) {
-		for (Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
-			put(entry.getKey(), entry.getValue());
+		apply(map, Collections.<K>emptySet());
+	}
+
+	public void apply(Map<? extends K, ? extends V> puts, Collection<? extends K> removes) {
+		if ((puts == null) || (removes == null)) {
+			throw new NullPointerException();
+		}
+		List<Map.Entry<K, V>> operations = new ArrayList<>(puts.size() + removes.size());
+		Iterator<Map.Entry<K, V>> putIterator = sorted(puts).entrySet().iterator();
+		Iterator<K> removeIterator = sorted(removes).iterator();
+		Map.Entry<K, V> put = putIterator.hasNext() ? putIterator.next() : null;
+		K remove = removeIterator.hasNext() ? removeIterator.next() : null;
+		while ((put != null) || (remove != null)) {
+			int compare = (put == null) ? 1 : (remove == null) ? -1 : compare(put.getKey(), remove);
+			if (compare == 0) {
+				throw new IllegalArgumentException();
+			}
+			if (compare < 0) {
+				if ((put.getKey() == null) || (put.getValue() == null)) {
+					throw new NullPointerException();
+				}
+				operations.add(put);
+				put = putIterator.hasNext() ? putIterator.next() : null;
+			} else {
+				operations.add(new AbstractMap.SimpleImmutableEntry<>(remove, null));
+				remove = removeIterator.hasNext() ? removeIterator.next() : null;
+			}
+		}
+		ConcurrentSkipListSet<Map.Entry<K, V>>.Finger finger = set.finger();
+		for (int attempt = 1;; attempt++) {
+			if (applyOnce(finger, operations)) {
+				set.contention().onSuccess(attempt - 1);
+				break;
+			}
+			set.contention().onFailure(attempt);
+		}
+		if (log != null) {
+			log.commit(log.position());
 		}
 	}
 
+	private boolean applyOnce(ConcurrentSkipListSet<Map.Entry<K, V>>.Finger finger, List<Map.Entry<K, V>> operations) {
+		AtomicReference<Boolean> decision = new AtomicReference<>();
+		List<Map.Entry<K, V>> entries = new ArrayList<>(operations.size());
+		List<Intent<V>> intents = new ArrayList<>(operations.size());
+		try {
+			for (Map.Entry<K, V> operation : operations) {
+				if (decision.get() != null) {
+					return false;
+				}
+				intend(finger, operation.getKey(), operation.getValue(), decision, entries, intents);
+			}
+			List<Consumer<Boolean>> changes = new ArrayList<>(intents.size());
+			for (int index = 0; index < intents.size(); index++) {
+				Intent<V> intent = intents.get(index);
+				if ((intent.oldValue != null) || (intent.newValue != null)) {
+					changes.add(changing((intent.oldValue == null) ? ChangeFeed.Operation.INSERT
+							: (intent.newValue == null) ? ChangeFeed.Operation.REMOVE : ChangeFeed.Operation.UPDATE
+							, entries.get(index).getKey(), intent.oldValue, intent.newValue));
+				}
+			}
+			boolean committed = decision.compareAndSet(null, Boolean.TRUE);
+			for (Consumer<Boolean> change : changes) {
+				if (change != null) {
+					change.accept(committed);
+				}
+			}
+			return committed;
+		} finally {
+			decision.compareAndSet(null, Boolean.FALSE);
+			for (int index = 0; index < intents.size(); index++) {
+				Entry.settle(entries.get(index), intents.get(index), this);
+			}
+		}
+	}
+
+	private void intend(ConcurrentSkipListSet<Map.Entry<K, V>>.Finger finger, K key, V value
+			, AtomicReference<Boolean> decision, List<Map.Entry<K, V>> entries, List<Intent<V>> intents) {
+		for (int attempt = 1;; attempt++) {
+			Intent<V> intent = new Intent<>(decision, null, value);
+			Entry<K, V> newEntry = new Entry<>(key, intent);
+			Map.Entry<K, V> entry = finger.addOrGet(newEntry);
+			if (entry == null) {
+				entry = newEntry;
+			} else {
+				intent = Entry.intendValueOf(entry, value, decision, this);
+			}
+			if (intent != null) {
+				set.contention().onSuccess(attempt - 1);
+				entries.add(entry);
+				intents.add(intent);
+				return;
+			}
+			set.contention().onFailure(attempt);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private SortedMap<K, V> sorted(Map<? extends K, ? extends V> map) {
+		if ((map instanceof SortedMap) && Objects.equals(((SortedMap<? extends K, ? extends V>) map).comparator(), comparator)) {
+			return (SortedMap<K, V>) map;
+		}
+		SortedMap<K, V> sortedMap = new TreeMap<>(comparator);
+		sortedMap.putAll(map);
+		return sortedMap;
+	}
+
+	@SuppressWarnings("unchecked")
+	private SortedSet<K> sorted(Collection<? extends K> collection) {
+		if ((collection instanceof SortedSet) && Objects.equals(((SortedSet<? extends K>) collection).comparator(), comparator)) {
+			return (SortedSet<K>) collection;
+		}
+		SortedSet<K> sortedSet = new TreeSet<>(comparator);
+		sortedSet.addAll(collection);
+		return sortedSet;
+	}
+
+	@SuppressWarnings("unchecked")
+	private int compare(K key1, K key2) {
+		return (comparator == null) ? ((Comparable<? super K>) key1).compareTo(key2) : comparator.compare(key1, key2);
+	}
+
 	@Override
 	public V replace(K key, V value) {
-		return Entry.setValueOf(set.get(Entry.newInstance(key, value)), value);
+		return mutate(() -> replaceValue(key, value));
+	}
+
+	private V replaceValue(K key, V value) {
+		Map.Entry<K, V> entry = set.get(Entry.newInstance(key, value));
+		V oldValue = Entry.setValueOf(entry, value, this);
+		if (oldValue != null) {
+			updated(entry);
+		}
+		return oldValue;
 	}
 
 	@Override
 	public boolean replace(K key, V oldValue, V newValue) {
+		return mutate(() -> replaceValue(key, oldValue, newValue));
+	}
+
+	private boolean replaceValue(K key, V oldValue, V newValue) {
 		if (newValue == null) {
 			throw new NullPointerException();
 		}
-		return Entry.updateValueOf(set.get(Entry.newInstance(key, oldValue)), oldValue, newValue);
+		Map.Entry<K, V> entry = set.get(Entry.newInstance(key, oldValue));
+		if (!Entry.updateValueOf(entry, oldValue, newValue, this)) {
+			return false;
+		}
+		updated(entry);
+		return true;
 	}
 
-	@SuppressWarnings("unchecked")
 	@Override
 	public V remove(Object key) {
-		return Entry.getValueOf(set.removeAndGet(Entry.newInstance((K) key)));
+		return mutate(() -> removeValue(null, key));
+	}
+
+	@SuppressWarnings("unchecked")
+	private V removeValue(ConcurrentSkipListSet<Map.Entry<K, V>>.Finger finger, Object key) {
+		return Entry.getValueOf((finger == null) ? set.removeAndGet(Entry.newInstance((K) key))
+				: finger.removeAndGet(Entry.newInstance((K) key)));
 	}
 
 	@SuppressWarnings("unchecked")
 	@Override
 	public boolean remove(Object key, Object value) {
 		Map.Entry<K, V> entry = Entry.newInstance((K) key, (V) value);
-		return new ValueCollection<>(set.subSet(entry, true, entry, true)).remove(value);
+		if (!set.inSubSet(entry)) {
+			return false;
+		}
+		return new ValueCollection<>(this, set.subSet(entry, true, entry, true)).remove(value);
 	}
 
 	@Override
 	public void clear() {
-		set.clear();
+		mutate(() -> {
+			set.clear();
+			return null;
+		});
 	}
 
 	@SuppressWarnings("unchecked")
 	@Override
 	public V get(Object key) {
+		if ((filter != null) && !filter.mightContain(hasher.applyAsInt((K) key))) {
+			return null;
+		}
 		return Entry.getValueOf(set.get(Entry.newInstance((K) key)));
 	}
 
 	@SuppressWarnings("unchecked")
 	@Override
 	public boolean containsKey(Object key) {
+		if ((filter != null) && !filter.mightContain(hasher.applyAsInt((K) key))) {
+			return false;
+		}
 		return set.contains(Entry.newInstance((K) key));
 	}
 
 	@Override
 	public boolean containsValue(Object value) {
-		return new ValueCollection<>(set).contains(value);
+		return new ValueCollection<>(this, set).contains(value);
 	}
 
 	@Override
@@ -188,12 +501,12 @@ public class ConcurrentSkipListMap<K, V> implements ConcurrentNavigableMap<K, V>
 
 	@Override
 	public Map.Entry<K, V> pollFirstEntry() {
-		return set.pollFirst();
+		return mutate(set::pollFirst);
 	}
 
 	@Override
 	public Map.Entry<K, V> pollLastEntry() {
-		return set.pollLast();
+		return mutate(set::pollLast);
 	}
 
 	@Override
@@ -208,48 +521,52 @@ public class ConcurrentSkipListMap<K, V> implements ConcurrentNavigableMap<K, V>
 
 	@Override
 	public ConcurrentNavigableMap<K, V> descendingMap() {
-		return new ConcurrentSkipListMap<>(Collections.reverseOrder(comparator), set.descendingSet());
+		return new ConcurrentSkipListMap<>(this, Collections.reverseOrder(comparator), set.descendingSet());
 	}	
 
 	@Override
 	public ConcurrentNavigableMap<K, V> headMap(K toKey) {
-		return new ConcurrentSkipListMap<>(comparator, set.headSet(Entry.newInstance(toKey)));
+		return new ConcurrentSkipListMap<>(this, comparator, set.headSet(Entry.newInstance(toKey)));
 	}
 
 	@Override
 	public ConcurrentNavigableMap<K, V> headMap(K toKey, boolean toInclusive) {
-		return new ConcurrentSkipListMap<>(comparator, set.headSet(Entry.newInstance(toKey), toInclusive));
+		return new ConcurrentSkipListMap<>(this, comparator, set.headSet(Entry.newInstance(toKey), toInclusive));
 	}
 
 	@Override
 	public ConcurrentNavigableMap<K, V> subMap(K fromKey, K toKey) {
-		return new ConcurrentSkipListMap<>(comparator, set.subSet(Entry.newInstance(fromKey), Entry.newInstance(toKey)));
+		return new ConcurrentSkipListMap<>(this, comparator, set.subSet(Entry.newInstance(fromKey), Entry.newInstance(toKey)));
 	}
 
 	@Override
 	public ConcurrentNavigableMap<K, V> subMap(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
-		return new ConcurrentSkipListMap<>(comparator, set.subSet(Entry.newInstance(fromKey), fromInclusive
+		return new ConcurrentSkipListMap<>(this, comparator, set.subSet(Entry.newInstance(fromKey), fromInclusive
 				, Entry.newInstance(toKey), toInclusive));
 	}
 
 	@Override
 	public ConcurrentNavigableMap<K, V> tailMap(K fromKey) {
-		return new ConcurrentSkipListMap<>(comparator, set.tailSet(Entry.newInstance(fromKey)));
+		return new ConcurrentSkipListMap<>(this, comparator, set.tailSet(Entry.newInstance(fromKey)));
 	}
 
 	@Override
 	public ConcurrentNavigableMap<K, V> tailMap(K fromKey, boolean fromInclusive) {
-		return new ConcurrentSkipListMap<>(comparator, set.tailSet(Entry.newInstance(fromKey), fromInclusive));
+		return new ConcurrentSkipListMap<>(this, comparator, set.tailSet(Entry.newInstance(fromKey), fromInclusive));
+	}
+
+	boolean inRange(K key) {
+		return set.inSubSet(Entry.newInstance(key));
 	}
 
 	@Override
 	public Set<Map.Entry<K, V>> entrySet() {
-		return new EntrySet<>(set);
+		return new EntrySet<>(this, set);
 	}
 
 	@Override
 	public NavigableSet<K> keySet() {
-		return new KeySet<>(comparator, set);
+		return new KeySet<>(this, comparator, set);
 	}
 
 	@Override
@@ -259,12 +576,141 @@ public class ConcurrentSkipListMap<K, V> implements ConcurrentNavigableMap<K, V>
 
 	@Override
 	public NavigableSet<K> descendingKeySet() {
-		return new KeySet<>(Collections.reverseOrder(comparator), set.descendingSet());
+		return new KeySet<>(this, Collections.reverseOrder(comparator), set.descendingSet());
 	}
 
 	@Override
 	public Collection<V> values() {
-		return new ValueCollection<>(set);
+		return new ValueCollection<>(this, set);
+	}
+
+	public void forEach(long parallelismThreshold, BiConsumer<? super K, ? super V> action) {
+		if (action == null) {
+			throw new NullPointerException();
+		}
+		set.partitions(parallelismThreshold, PARALLELISM).parallelStream().forEach(partition -> {
+			for (Map.Entry<K, V> entry : partition) {
+				action.accept(entry.getKey(), entry.getValue());
+			}
+		});
+	}
+
+	public <U> U search(long parallelismThreshold, BiFunction<? super K, ? super V, ? extends U> searchFunction) {
+		if (searchFunction == null) {
+			throw new NullPointerException();
+		}
+		AtomicReference<U> result = new AtomicReference<>();
+		set.partitions(parallelismThreshold, PARALLELISM).parallelStream().forEach(partition -> {
+			for (Map.Entry<K, V> entry : partition) {
+				if (result.get() != null) {
+					return;
+				}
+				U value = searchFunction.apply(entry.getKey(), entry.getValue());
+				if (value != null) {
+					result.compareAndSet(null, value);
+					return;
+				}
+			}
+		});
+		return result.get();
+	}
+
+	public <U> U reduce(long parallelismThreshold, BiFunction<? super K, ? super V, ? extends U> transformer
+			, BiFunction<? super U, ? super U, ? extends U> reducer) {
+		if ((transformer == null) || (reducer == null)) {
+			throw new NullPointerException();
+		}
+		return set.partitions(parallelismThreshold, PARALLELISM).parallelStream().map(partition -> {
+			U result = null;
+			for (Map.Entry<K, V> entry : partition) {
+				U value = transformer.apply(entry.getKey(), entry.getValue());
+				if (value != null) {
+					result = (result == null) ? value : reducer.apply(result, value);
+				}
+			}
+			return result;
+		}).filter(Objects::nonNull).reduce((result1, result2) -> reducer.apply(result1, result2)).orElse(null);
+	}
+
+	public K reduceKeys(long parallelismThreshold, BiFunction<? super K, ? super K, ? extends K> reducer) {
+		return reduce(parallelismThreshold, (key, value) -> key, reducer);
+	}
+
+	public V reduceValues(long parallelismThreshold, BiFunction<? super V, ? super V, ? extends V> reducer) {
+		return reduce(parallelismThreshold, (key, value) -> value, reducer);
+	}
+
+	public long reduceToLong(long parallelismThreshold, ToLongBiFunction<? super K, ? super V> transformer
+			, long basis, LongBinaryOperator reducer) {
+		if ((transformer == null) || (reducer == null)) {
+			throw new NullPointerException();
+		}
+		return set.partitions(parallelismThreshold, PARALLELISM).parallelStream().mapToLong(partition -> {
+			long result = basis;
+			for (Map.Entry<K, V> entry : partition) {
+				result = reducer.applyAsLong(result, transformer.applyAsLong(entry.getKey(), entry.getValue()));
+			}
+			return result;
+		}).reduce(basis, reducer);
+	}
+
+	public Finger finger() {
+		return new Finger();
+	}
+
+	public FrozenNavigableMap<K, V> freeze() {
+		return new FrozenNavigableMap<>(this);
+	}
+
+	public ChangeFeed<K, V> changeFeed() {
+		ChangeFeed<K, V> currentFeed = feed.get();
+		if (currentFeed == null) {
+			ChangeFeed<K, V> createdFeed = new ChangeFeed<>(ChangeFeed.DEFAULT_CAPACITY);
+			if (feed.compareAndSet(null, createdFeed) && (log == null)) {
+				set.listen(this::changing);
+			}
+			currentFeed = feed.get();
+		}
+		return currentFeed;
+	}
+
+	private Consumer<Boolean> changing(Map.Entry<K, V> oldEntry, Map.Entry<K, V> newEntry) {
+		if (Entry.isIntended((oldEntry == null) ? newEntry : oldEntry)) {
+			return null;
+		}
+		return (oldEntry == null) ? changing(ChangeFeed.Operation.INSERT, newEntry.getKey(), null, newEntry.getValue())
+				: changing(ChangeFeed.Operation.REMOVE, oldEntry.getKey(), oldEntry.getValue(), null);
+	}
+
+	private Consumer<Boolean> changing(ChangeFeed.Operation operation, K key, V oldValue, V newValue) {
+		ChangeFeed<K, V> currentFeed = feed.get();
+		Consumer<Boolean> published = (currentFeed == null) ? null : currentFeed.reserve(operation, key, oldValue, newValue);
+		Consumer<Boolean> logged = (log == null) ? null : log.reserve(key, newValue);
+		return (logged == null) ? published : (published == null) ? logged : published.andThen(logged);
+	}
+
+	private boolean claim(Map.Entry<K, V> entry) {
+		return Entry.claimValueOf(entry, this);
+	}
+
+	private void updated(Map.Entry<K, V> entry) {
+		set.reaggregate(entry);
+	}
+
+	RangeAggregator<? super V, ?> aggregator() {
+		return aggregator;
+	}
+
+	Object aggregate() {
+		return set.aggregate();
+	}
+
+	private <T> T mutate(Supplier<T> mutation) {
+		T result = mutation.get();
+		if (log != null) {
+			log.commit(log.position());
+		}
+		return result;
 	}
 
 	@Override
@@ -296,11 +742,43 @@ public class ConcurrentSkipListMap<K, V> implements ConcurrentNavigableMap<K, V>
 		return builder.delete(1, 3).append("}").toString();
 	}
 
+	public class Finger {
+
+		private final ConcurrentSkipListSet<Map.Entry<K, V>>.Finger entries;
+
+		private Finger() {
+			entries = set.finger();
+		}
+
+		public V get(K key) {
+			return Entry.getValueOf(entries.get(Entry.newInstance(key)));
+		}
+
+		public boolean containsKey(K key) {
+			return (get(key) != null);
+		}
+
+		public V put(K key, V value) {
+			return mutate(() -> putValue(entries, key, value));
+		}
+
+		public V putIfAbsent(K key, V value) {
+			return mutate(() -> putValueIfAbsent(entries, key, value));
+		}
+
+		public V remove(K key) {
+			return mutate(() -> removeValue(entries, key));
+		}
+
+	}
+
     private static class EntrySet<K, V> extends AbstractConcurrentSet<Map.Entry<K, V>> {
 
+    	private ConcurrentSkipListMap<K, V> map;
     	private ConcurrentSkipListSet<Map.Entry<K, V>> set;
 
-    	public EntrySet(NavigableSet<Map.Entry<K, V>> set) {
+    	public EntrySet(ConcurrentSkipListMap<K, V> map, NavigableSet<Map.Entry<K, V>> set) {
+    		this.map = map;
     		this.set = (ConcurrentSkipListSet<Map.Entry<K, V>>) set;
     	}
 
@@ -310,7 +788,7 @@ public class ConcurrentSkipListMap<K, V> implements ConcurrentNavigableMap<K, V>
 				@SuppressWarnings("unchecked")
 				Map.Entry<K, V> entry = (Map.Entry<K, V>) item;
 				if (entry.getKey() != null) {
-					return (new ValueCollection<>(set.subSet(entry, true, entry, true)).remove(entry.getValue()));
+					return (new ValueCollection<>(map, set.subSet(entry, true, entry, true)).remove(entry.getValue()));
 				}
 			}
 			return false;
@@ -324,10 +802,7 @@ public class ConcurrentSkipListMap<K, V> implements ConcurrentNavigableMap<K, V>
 				if (entry.getKey() != null) {
 					V value = entry.getValue();
 					if (value != null) {
-						entry = set.get(entry);
-						if (entry != null) {
-							return entry.getValue().equals(value);
-						}
+						return value.equals(Entry.getValueOf(set.get(entry)));
 					}
 				}
 			}
@@ -346,24 +821,55 @@ public class ConcurrentSkipListMap<K, V> implements ConcurrentNavigableMap<K, V>
 
 		@Override
 		public ConcurrentIterator<Map.Entry<K, V>> iterator() {
-			return set.iterator();
+			ConcurrentIterator<Map.Entry<K, V>> iterator = set.iterator();
+			return new ConcurrentIterator<Map.Entry<K, V>>() {
+
+				@Override
+				public boolean hasNext() {
+					return iterator.hasNext();
+				}
+
+				@Override
+				public Map.Entry<K, V> next() {
+					return iterator.next();
+				}
+
+				@Override
+				public int nextBatch(Map.Entry<K, V>[] batch) {
+					return iterator.nextBatch(batch);
+				}
+
+				@Override
+				public void forEachRemaining(Consumer<? super Map.Entry<K, V>> action) {
+					iterator.forEachRemaining(action);
+				}
+
+				@Override
+				public boolean removeElement() {
+					return map.mutate(iterator::removeElement);
+				}
+
+			};
 		}
 
     }
 
     private static class KeySet<K, V> extends AbstractConcurrenNavigableSet<K> {
 
+    	private ConcurrentSkipListMap<K, V> map;
     	private ConcurrentSkipListSet<Map.Entry<K, V>> set;
 
-    	public KeySet(Comparator<? super K> comparator, NavigableSet<Map.Entry<K, V>> set) {
+    	public KeySet(ConcurrentSkipListMap<K, V> map, Comparator<? super K> comparator
+    			, NavigableSet<Map.Entry<K, V>> set) {
     		super(comparator);
+    		this.map = map;
     		this.set = (ConcurrentSkipListSet<Map.Entry<K, V>>) set;
     	}
 
 		@SuppressWarnings("unchecked")
 		@Override
 		public boolean remove(Object item) {
-			return set.remove(Entry.newInstance((K) item));
+			return map.mutate(() -> set.remove(Entry.newInstance((K) item)));
 		}
 
 		@SuppressWarnings("unchecked")
@@ -404,12 +910,12 @@ public class ConcurrentSkipListMap<K, V> implements ConcurrentNavigableMap<K, V>
 
 		@Override
 		public K pollFirst() {
-			return Entry.getKeyOf(set.pollFirst());
+			return Entry.getKeyOf(map.mutate(set::pollFirst));
 		}
 
 		@Override
 		public K pollLast() {
-			return Entry.getKeyOf(set.pollLast());
+			return Entry.getKeyOf(map.mutate(set::pollLast));
 		}
 
 		@Override
@@ -429,28 +935,29 @@ public class ConcurrentSkipListMap<K, V> implements ConcurrentNavigableMap<K, V>
 
 		@Override
 		public NavigableSet<K> descendingSet() {
-			return new KeySet<K, V>(Collections.reverseOrder(comparator()), set.descendingSet());
+			return new KeySet<K, V>(map, Collections.reverseOrder(comparator()), set.descendingSet());
 		}
 
 		@Override
 		public NavigableSet<K> headSet(K toItem, boolean toInclusive) {
-			return new KeySet<K, V>(comparator(), set.headSet(Entry.newInstance(toItem), toInclusive));
+			return new KeySet<K, V>(map, comparator(), set.headSet(Entry.newInstance(toItem), toInclusive));
 		}
 
 		@Override
 		public NavigableSet<K> subSet(K fromItem, boolean fromInclusive, K toItem, boolean toInclusive) {
-			return new KeySet<K, V>(comparator(), set.subSet(Entry.newInstance(fromItem)
+			return new KeySet<K, V>(map, comparator(), set.subSet(Entry.newInstance(fromItem)
 							, fromInclusive, Entry.newInstance(toItem), toInclusive));
 		}
 
 		@Override
 		public NavigableSet<K> tailSet(K fromItem, boolean fromInclusive) {
-			return new KeySet<K, V>(comparator(), set.tailSet(Entry.newInstance(fromItem), fromInclusive));
+			return new KeySet<K, V>(map, comparator(), set.tailSet(Entry.newInstance(fromItem), fromInclusive));
 		}
 
 		private class KeyIterator implements ConcurrentIterator<K> {
 
 	    	private ConcurrentIterator<Map.Entry<K, V>> iterator;
+	    	private Map.Entry<K, V>[] entries;
 
 	    	public KeyIterator(ConcurrentIterator<Map.Entry<K, V>> iterator) {
     			this.iterator = iterator;
@@ -466,9 +973,31 @@ public class ConcurrentSkipListMap<K, V> implements ConcurrentNavigableMap<K, V>
 				return iterator.next().getKey();
 			}
 
+			@SuppressWarnings("unchecked")
+			@Override
+			public int nextBatch(K[] batch) {
+				if ((entries == null) || (entries.length != batch.length)) {
+					entries = new Map.Entry[batch.length];
+				}
+				int count = iterator.nextBatch(entries);
+				for (int index = 0; index < count; index++) {
+					batch[index] = entries[index].getKey();
+					entries[index] = null;
+				}
+				return count;
+			}
+
+			@Override
+			public void forEachRemaining(Consumer<? super K> action) {
+				if (action == null) {
+					throw new NullPointerException();
+				}
+				iterator.forEachRemaining(entry -> action.accept(entry.getKey()));
+			}
+
 	    	@Override
 	    	public boolean removeElement() {
-	    		return iterator.removeElement();
+	    		return map.mutate(iterator::removeElement);
 			}
 
 	    }
@@ -477,9 +1006,11 @@ public class ConcurrentSkipListMap<K, V> implements ConcurrentNavigableMap<K, V>
     
 	private static class ValueCollection<K, V> extends AbstractConcurrentCollection<V> {
 	
+    	private ConcurrentSkipListMap<K, V> map;
     	private ConcurrentSkipListSet<Map.Entry<K, V>> set;
 
-    	public ValueCollection(NavigableSet<Map.Entry<K, V>> set) {
+    	public ValueCollection(ConcurrentSkipListMap<K, V> map, NavigableSet<Map.Entry<K, V>> set) {
+    		this.map = map;
     		this.set = (ConcurrentSkipListSet<Map.Entry<K, V>>) set;
     	}
 
@@ -488,13 +1019,17 @@ public class ConcurrentSkipListMap<K, V> implements ConcurrentNavigableMap<K, V>
 			if (value == null) {
 				return false;
 			}
-			ConcurrentIterator<Map.Entry<K, V>> iterator = set.iterator();
-			while (iterator.hasNext()) {
-				if (Entry.markValueOf(iterator.next(), value) && iterator.removeElement()) {
-					return true;
+			return map.mutate(() -> {
+				ConcurrentIterator<Map.Entry<K, V>> iterator = set.iterator();
+				while (iterator.hasNext()) {
+					Map.Entry<K, V> entry = iterator.next();
+					if (value.equals(entry.getValue()) && (set.removeAndGetIf(entry
+							, item -> (item == entry) && Entry.markValueOf(item, value, map)) != null)) {
+						return true;
+					}
 				}
-			}
-			return false;
+				return false;
+			});
 		}
 
 		@Override
@@ -529,6 +1064,7 @@ public class ConcurrentSkipListMap<K, V> implements ConcurrentNavigableMap<K, V>
 	    private class ValueIterator implements ConcurrentIterator<V> {
 
 	    	private ConcurrentIterator<Map.Entry<K, V>> iterator;
+	    	private Map.Entry<K, V>[] entries;
 
 	    	public ValueIterator(ConcurrentIterator<Map.Entry<K, V>> iterator) {
     			this.iterator = iterator;
@@ -544,9 +1080,31 @@ public class ConcurrentSkipListMap<K, V> implements ConcurrentNavigableMap<K, V>
 				return iterator.next().getValue();
 			}
 
+			@SuppressWarnings("unchecked")
+			@Override
+			public int nextBatch(V[] batch) {
+				if ((entries == null) || (entries.length != batch.length)) {
+					entries = new Map.Entry[batch.length];
+				}
+				int count = iterator.nextBatch(entries);
+				for (int index = 0; index < count; index++) {
+					batch[index] = entries[index].getValue();
+					entries[index] = null;
+				}
+				return count;
+			}
+
+			@Override
+			public void forEachRemaining(Consumer<? super V> action) {
+				if (action == null) {
+					throw new NullPointerException();
+				}
+				iterator.forEachRemaining(entry -> action.accept(entry.getValue()));
+			}
+
 	    	@Override
 	    	public boolean removeElement() {
-	    		return iterator.removeElement();
+	    		return map.mutate(iterator::removeElement);
 			}
 
 	    }
@@ -567,15 +1125,73 @@ public class ConcurrentSkipListMap<K, V> implements ConcurrentNavigableMap<K, V>
 		public int compare(Map.Entry<K, V> entry1, Map.Entry<K, V> entry2) {
 			return comparator.compare(entry1.getKey(), entry2.getKey());
 		}
+
+		@Override
+		public boolean equals(Object object) {
+			return (object instanceof EntryComparator) && comparator.equals(((EntryComparator<?, ?>) object).comparator);
+		}
+
+		@Override
+		public int hashCode() {
+			return comparator.hashCode();
+		}
 		
 	}
 	
+	private static class KeyAbbreviator<K, V> implements Abbreviator<Map.Entry<K, V>> {
+
+		private final Abbreviator<? super K> abbreviator;
+
+		private KeyAbbreviator(Abbreviator<? super K> abbreviator) {
+			this.abbreviator = abbreviator;
+		}
+
+		@Override
+		public long abbreviate(Map.Entry<K, V> entry) {
+			return abbreviator.abbreviate(entry.getKey());
+		}
+
+		@Override
+		public boolean isExact() {
+			return abbreviator.isExact();
+		}
+
+		@Override
+		public Comparator<? super Map.Entry<K, V>> comparator() {
+			return (abbreviator.comparator() == null) ? null : new EntryComparator<K, V>(abbreviator.comparator());
+		}
+
+	}
+
+	private static class Intent<V> {
+
+		private final AtomicReference<Boolean> decision;
+		private final V oldValue;
+		private final V newValue;
+
+		private Intent(AtomicReference<Boolean> decision, V oldValue, V newValue) {
+			this.decision = decision;
+			this.oldValue = oldValue;
+			this.newValue = newValue;
+		}
+
+		private V value() {
+			return (decision.get() == Boolean.TRUE) ? newValue : oldValue;
+		}
+
+		private V lastValue() {
+			V value = value();
+			return (value != null) ? value : (oldValue != null) ? oldValue : newValue;
+		}
+
+	}
+
 	private static class Entry<K, V> implements Map.Entry<K, V>, Comparable<Map.Entry<K, V>> {
 
 		private final K key;
-		private final AtomicMarkableReference<V> value;
+		private final AtomicMarkableReference<Object> value;
 		
-		public Entry(K key, V value) {
+		public Entry(K key, Object value) {
 			this.key = key;
 			this.value = new AtomicMarkableReference<>(value, false);
 		}
@@ -585,9 +1201,11 @@ public class ConcurrentSkipListMap<K, V> implements ConcurrentNavigableMap<K, V>
 			return key;
 		}
 
+		@SuppressWarnings("unchecked")
 		@Override
 		public V getValue() {
-			return value.getReference();
+			Object currentValue = value.getReference();
+			return (currentValue instanceof Intent) ? ((Intent<V>) currentValue).lastValue() : (V) currentValue;
 		}
 
 		@Override
@@ -638,58 +1256,178 @@ public class ConcurrentSkipListMap<K, V> implements ConcurrentNavigableMap<K, V>
 			return (entry == null) ? null : entry.getKey();
 		}
 
+		@SuppressWarnings("unchecked")
 		private static <K, V> V getValueOf(Map.Entry<K, V> entry) {
-			return (entry == null) ? null : entry.getValue();
+			if (entry == null) {
+				return null;
+			}
+			Object currentValue = ((Entry<K, V>) entry).value.getReference();
+			return (currentValue instanceof Intent) ? ((Intent<V>) currentValue).value() : (V) currentValue;
+		}
+
+		private static <K, V> boolean isPresent(Map.Entry<K, V> entry) {
+			Object currentValue = ((Entry<K, V>) entry).value.getReference();
+			return !(currentValue instanceof Intent) || (((Intent<?>) currentValue).value() != null);
+		}
+
+		private static <K, V> boolean isIntended(Map.Entry<K, V> entry) {
+			return (((Entry<K, V>) entry).value.getReference() instanceof Intent);
+		}
+
+		@SuppressWarnings("unchecked")
+		private static <K, V> V settledValueOf(Map.Entry<K, V> entry, ConcurrentSkipListMap<K, V> map) {
+			Object currentValue = ((Entry<K, V>) entry).value.getReference();
+			if (currentValue instanceof Intent) {
+				settle(entry, (Intent<V>) currentValue, map);
+			}
+			return getValueOf(entry);
+		}
+
+		private static <K, V> void settle(Map.Entry<K, V> entry, Intent<V> intent, ConcurrentSkipListMap<K, V> map) {
+			intent.decision.compareAndSet(null, Boolean.FALSE);
+			AtomicMarkableReference<Object> valueReference = ((Entry<K, V>) entry).value;
+			V settledValue = intent.value();
+			if (settledValue == null) {
+				map.set.removeAndGetIf(entry, item -> (item == entry) 
+						&& valueReference.compareAndSet(intent, intent, false, true));
+			} else if (valueReference.compareAndSet(intent, settledValue, false, false) 
+					&& (settledValue != intent.oldValue)) {
+				map.updated(entry);
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		private static <K, V> Intent<V> intendValueOf(Map.Entry<K, V> entry, V newValue
+				, AtomicReference<Boolean> decision, ConcurrentSkipListMap<K, V> map) {
+			AtomicMarkableReference<Object> valueReference = ((Entry<K, V>) entry).value;
+			boolean[] marked = new boolean[1];
+			for (int attempt = 1;; attempt++) {
+				Object expectedValue = valueReference.get(marked);
+				if (marked[0]) {
+					return null;
+				}
+				if (expectedValue instanceof Intent) {
+					settle(entry, (Intent<V>) expectedValue, map);
+					continue;
+				}
+				Intent<V> intent = new Intent<>(decision, (V) expectedValue, newValue);
+				if (valueReference.compareAndSet(expectedValue, intent, false, false)) {
+					map.set.contention().onSuccess(attempt - 1);
+					return intent;
+				}
+				map.set.contention().onFailure(attempt);
+			}
 		}
 
-		private static <K, V> V setValueOf(Map.Entry<K, V> entry, V newValue) {
+		@SuppressWarnings("unchecked")
+		private static <K, V> V setValueOf(Map.Entry<K, V> entry, V newValue, ConcurrentSkipListMap<K, V> map) {
 			if (entry == null) {
 				return null;
 			}
-			AtomicMarkableReference<V> valueReference = ((Entry<K, V>) entry).value;
-			while (true) {
-				V expectedValue = valueReference.getReference();
-				if (valueReference.compareAndSet(expectedValue, newValue, false, false) || (expectedValue == newValue)) {
-					return expectedValue;		
-				}
-				if (valueReference.isMarked()) {
+			AtomicMarkableReference<Object> valueReference = ((Entry<K, V>) entry).value;
+			boolean[] marked = new boolean[1];
+			for (int attempt = 1;; attempt++) {
+				Object expectedValue = valueReference.get(marked);
+				if (marked[0]) {
 					return null;
 				}
-			} 
+				if (expectedValue instanceof Intent) {
+					settle(entry, (Intent<V>) expectedValue, map);
+					continue;
+				}
+				Consumer<Boolean> change = map.changing(ChangeFeed.Operation.UPDATE, entry.getKey(), (V) expectedValue
+						, newValue);
+				boolean updated = valueReference.compareAndSet(expectedValue, newValue, false, false);
+				if (change != null) {
+					change.accept(updated);
+				}
+				if (updated) {
+					map.set.contention().onSuccess(attempt - 1);
+					return (V) expectedValue;		
+				}
+				map.set.contention().onFailure(attempt);
+			}
 		}
 
-		private static <K, V> boolean updateValueOf(Map.Entry<K, V> entry, V oldValue, V newValue) {
+		@SuppressWarnings("unchecked")
+		private static <K, V> boolean updateValueOf(Map.Entry<K, V> entry, V oldValue, V newValue
+				, ConcurrentSkipListMap<K, V> map) {
 			if (entry == null) {
 				return false;
 			}
-			AtomicMarkableReference<V> valueReference = ((Entry<K, V>) entry).value;
-			while (true) {
-				V expectedValue = valueReference.getReference();
+			AtomicMarkableReference<Object> valueReference = ((Entry<K, V>) entry).value;
+			boolean[] marked = new boolean[1];
+			for (int attempt = 1;; attempt++) {
+				Object expectedValue = valueReference.get(marked);
+				if (marked[0]) {
+					return false;
+				}
+				if (expectedValue instanceof Intent) {
+					settle(entry, (Intent<V>) expectedValue, map);
+					continue;
+				}
 				if (!expectedValue.equals(oldValue)) {
 					return false;
 				}
-				if (valueReference.compareAndSet(expectedValue, newValue, false, false) || (expectedValue == newValue)) {
+				Consumer<Boolean> change = map.changing(ChangeFeed.Operation.UPDATE, entry.getKey(), (V) expectedValue
+						, newValue);
+				boolean updated = valueReference.compareAndSet(expectedValue, newValue, false, false);
+				if (change != null) {
+					change.accept(updated);
+				}
+				if (updated) {
+					map.set.contention().onSuccess(attempt - 1);
 					return true;		
 				}
-				if (valueReference.isMarked()) {
+				map.set.contention().onFailure(attempt);
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		private static <K, V> boolean claimValueOf(Map.Entry<K, V> entry, ConcurrentSkipListMap<K, V> map) {
+			AtomicMarkableReference<Object> valueReference = ((Entry<K, V>) entry).value;
+			boolean[] marked = new boolean[1];
+			for (int attempt = 1;; attempt++) {
+				Object expectedValue = valueReference.get(marked);
+				if (marked[0]) {
 					return false;
 				}
-			} 
+				if (expectedValue instanceof Intent) {
+					settle(entry, (Intent<V>) expectedValue, map);
+					continue;
+				}
+				if (valueReference.compareAndSet(expectedValue, expectedValue, false, true)) {
+					map.set.contention().onSuccess(attempt - 1);
+					return true;
+				}
+				map.set.contention().onFailure(attempt);
+			}
 		}
 
-		private static <K, V> boolean markValueOf(Map.Entry<K, V> entry, Object oldValue) {
+		@SuppressWarnings("unchecked")
+		private static <K, V> boolean markValueOf(Map.Entry<K, V> entry, Object oldValue, ConcurrentSkipListMap<K, V> map) {
 			if (entry == null) {
 				return false;
 			}
-			AtomicMarkableReference<V> valueReference = ((Entry<K, V>) entry).value;
-			while (true) {
-				V expectedValue = valueReference.getReference();
+			AtomicMarkableReference<Object> valueReference = ((Entry<K, V>) entry).value;
+			boolean[] marked = new boolean[1];
+			for (int attempt = 1;; attempt++) {
+				Object expectedValue = valueReference.get(marked);
+				if (marked[0]) {
+					return false;
+				}
+				if (expectedValue instanceof Intent) {
+					settle(entry, (Intent<V>) expectedValue, map);
+					continue;
+				}
 				if (!expectedValue.equals(oldValue)) {
 					return false;
 				}
-				if (valueReference.compareAndSet(expectedValue, expectedValue, false, true) || valueReference.isMarked()) {
+				if (valueReference.compareAndSet(expectedValue, expectedValue, false, true)) {
+					map.set.contention().onSuccess(attempt - 1);
 					return true;		
 				}
+				map.set.contention().onFailure(attempt);
 			}
 		}
 
@@ -0,0 +1,376 @@
+package ua.shevchuk.concurrent;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ConcurrentSkipListMultimap<K, V> {
+
+	private final Comparator<? super K> comparator;
+	private final ConcurrentSkipListSet<Slot<K, V>> set;
+	private final AtomicLong insertions;
+
+	public ConcurrentSkipListMultimap() {
+		this(null);
+	}
+
+	public ConcurrentSkipListMultimap(Comparator<? super K> comparator) {
+		this.comparator = comparator;
+		set = new ConcurrentSkipListSet<>(new SlotComparator<>(comparator));
+		insertions = new AtomicLong();
+	}
+
+	public Comparator<? super K> comparator() {
+		return comparator;
+	}
+
+	public boolean put(K key, V value) {
+		if ((key == null) || (value == null)) {
+			throw new NullPointerException();
+		}
+		return set.add(new Slot<>(key, value, insertions.getAndIncrement()));
+	}
+
+	public Collection<V> get(K key) {
+		return new ValueCollection(range(key));
+	}
+
+	public boolean containsKey(K key) {
+		Slot<K, V> slot = set.higher(lowestSlot(key));
+		return (slot != null) && (compare(slot.key, key) == 0);
+	}
+
+	public boolean containsEntry(K key, V value) {
+		return get(key).contains(value);
+	}
+
+	public boolean remove(K key, V value) {
+		return get(key).remove(value);
+	}
+
+	public int removeAll(K key) {
+		int count = 0;
+		for (ConcurrentIterator<Slot<K, V>> iterator = (ConcurrentIterator<Slot<K, V>>) range(key).iterator()
+				; iterator.hasNext();) {
+			iterator.next();
+			if (iterator.removeElement()) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	public void clear() {
+		set.clear();
+	}
+
+	public boolean isEmpty() {
+		return set.isEmpty();
+	}
+
+	public int size() {
+		return set.size();
+	}
+
+	public int countKeys() {
+		int count = 0;
+		for (Iterator<K> iterator = new KeyIterator(); iterator.hasNext(); iterator.next()) {
+			count++;
+		}
+		return count;
+	}
+
+	public Set<K> keySet() {
+		return new AbstractSet<K>() {
+
+			@Override
+			public Iterator<K> iterator() {
+				return new KeyIterator();
+			}
+
+			@SuppressWarnings("unchecked")
+			@Override
+			public boolean contains(Object key) {
+				return containsKey((K) key);
+			}
+
+			@SuppressWarnings("unchecked")
+			@Override
+			public boolean remove(Object key) {
+				return (ConcurrentSkipListMultimap.this.removeAll((K) key) > 0);
+			}
+
+			@Override
+			public int size() {
+				return countKeys();
+			}
+
+		};
+	}
+
+	public Collection<Map.Entry<K, V>> entries() {
+		return new AbstractConcurrentCollection<Map.Entry<K, V>>() {
+
+			@SuppressWarnings("unchecked")
+			@Override
+			public boolean remove(Object item) {
+				if (!(item instanceof Map.Entry)) {
+					return false;
+				}
+				Map.Entry<K, V> entry = (Map.Entry<K, V>) item;
+				return ConcurrentSkipListMultimap.this.remove(entry.getKey(), entry.getValue());
+			}
+
+			@SuppressWarnings("unchecked")
+			@Override
+			public boolean contains(Object item) {
+				if (!(item instanceof Map.Entry)) {
+					return false;
+				}
+				Map.Entry<K, V> entry = (Map.Entry<K, V>) item;
+				return containsEntry(entry.getKey(), entry.getValue());
+			}
+
+			@Override
+			public boolean isEmpty() {
+				return set.isEmpty();
+			}
+
+			@Override
+			public int size() {
+				return set.size();
+			}
+
+			@Override
+			public ConcurrentIterator<Map.Entry<K, V>> iterator() {
+				ConcurrentIterator<Slot<K, V>> iterator = set.iterator();
+				return new ConcurrentIterator<Map.Entry<K, V>>() {
+
+					@Override
+					public boolean hasNext() {
+						return iterator.hasNext();
+					}
+
+					@Override
+					public Map.Entry<K, V> next() {
+						return iterator.next();
+					}
+
+					@Override
+					public boolean removeElement() {
+						return iterator.removeElement();
+					}
+
+				};
+			}
+
+		};
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder("{");
+		for (Map.Entry<K, V> entry : entries()) {
+			builder.append(", ").append(entry);
+		}
+		return builder.delete(1, 3).append("}").toString();
+	}
+
+	private NavigableSet<Slot<K, V>> range(K key) {
+		return set.subSet(lowestSlot(key), false, new Slot<>(key, null, Long.MAX_VALUE), false);
+	}
+
+	private Slot<K, V> lowestSlot(K key) {
+		if (key == null) {
+			throw new NullPointerException();
+		}
+		return new Slot<>(key, null, Long.MIN_VALUE);
+	}
+
+	private int compare(K key1, K key2) {
+		return SlotComparator.compare(comparator, key1, key2);
+	}
+
+	private class ValueCollection extends AbstractConcurrentCollection<V> {
+
+		private final NavigableSet<Slot<K, V>> range;
+
+		public ValueCollection(NavigableSet<Slot<K, V>> range) {
+			this.range = range;
+		}
+
+		@Override
+		public boolean remove(Object value) {
+			if (value == null) {
+				throw new NullPointerException();
+			}
+			ConcurrentIterator<V> iterator = iterator();
+			while (iterator.hasNext()) {
+				if (value.equals(iterator.next()) && iterator.removeElement()) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		@Override
+		public boolean contains(Object value) {
+			if (value == null) {
+				throw new NullPointerException();
+			}
+			for (Slot<K, V> slot : range) {
+				if (value.equals(slot.value)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return range.isEmpty();
+		}
+
+		@Override
+		public int size() {
+			return range.size();
+		}
+
+		@Override
+		public ConcurrentIterator<V> iterator() {
+			ConcurrentIterator<Slot<K, V>> iterator = (ConcurrentIterator<Slot<K, V>>) range.iterator();
+			return new ConcurrentIterator<V>() {
+
+				@Override
+				public boolean hasNext() {
+					return iterator.hasNext();
+				}
+
+				@Override
+				public V next() {
+					return iterator.next().value;
+				}
+
+				@Override
+				public boolean removeElement() {
+					return iterator.removeElement();
+				}
+
+			};
+		}
+
+	}
+
+	private class KeyIterator implements Iterator<K> {
+
+		private Slot<K, V> nextSlot;
+		private K lastKey;
+
+		public KeyIterator() {
+			Iterator<Slot<K, V>> iterator = set.iterator();
+			nextSlot = iterator.hasNext() ? iterator.next() : null;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return (nextSlot != null);
+		}
+
+		@Override
+		public K next() {
+			if (nextSlot == null) {
+				throw new NoSuchElementException();
+			}
+			lastKey = nextSlot.key;
+			nextSlot = set.higher(new Slot<>(lastKey, null, Long.MAX_VALUE));
+			return lastKey;
+		}
+
+		@Override
+		public void remove() {
+			if (lastKey == null) {
+				throw new IllegalStateException();
+			}
+			removeAll(lastKey);
+			lastKey = null;
+		}
+
+	}
+
+	private static class Slot<K, V> implements Map.Entry<K, V> {
+
+		private final K key;
+		private final V value;
+		private final long insertion;
+
+		public Slot(K key, V value, long insertion) {
+			this.key = key;
+			this.value = value;
+			this.insertion = insertion;
+		}
+
+		@Override
+		public K getKey() {
+			return key;
+		}
+
+		@Override
+		public V getValue() {
+			return value;
+		}
+
+		@Override
+		public V setValue(V value) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public boolean equals(Object object) {
+			if (!(object instanceof Map.Entry)) {
+				return false;
+			}
+			Map.Entry<?, ?> entry = (Map.Entry<?, ?>) object;
+			return key.equals(entry.getKey()) && Objects.equals(value, entry.getValue());
+		}
+
+		@Override
+		public int hashCode() {
+			return key.hashCode() ^ Objects.hashCode(value);
+		}
+
+		@Override
+		public String toString() {
+			return key + "=" + value;
+		}
+
+	}
+
+	private static class SlotComparator<K, V> implements Comparator<Slot<K, V>> {
+
+		private final Comparator<? super K> comparator;
+
+		public SlotComparator(Comparator<? super K> comparator) {
+			this.comparator = comparator;
+		}
+
+		@Override
+		public int compare(Slot<K, V> slot1, Slot<K, V> slot2) {
+			int result = compare(comparator, slot1.key, slot2.key);
+			return (result != 0) ? result : Long.compare(slot1.insertion, slot2.insertion);
+		}
+
+		@SuppressWarnings("unchecked")
+		private static <K> int compare(Comparator<? super K> comparator, K key1, K key2) {
+			return (comparator == null) ? ((Comparable<? super K>) key1).compareTo(key2) : comparator.compare(key1, key2);
+		}
+
+	}
+
+}
@@ -1,26 +1,54 @@
 package ua.shevchuk.concurrent;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
 import java.util.NavigableSet;
 import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.RandomAccess;
 import java.util.Set;
 import java.util.SortedSet;
+import java.util.Spliterator;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicMarkableReference;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
 
 public class ConcurrentSkipListSet<E> extends AbstractConcurrenNavigableSet<E> implements Cloneable, Serializable {
 
 	private static final long serialVersionUID = -6852381495890067210L;
 	private static final int MAXIMUM_HEIGHT = 32;
+	private static final Object NULL_SUMMARY = new Object();
 	
 	private final Node<E> headNode;
 	private final AtomicInteger size; 
 	private final AtomicInteger startLevel;
 	private final AtomicInteger nodeHeight;
+	private final RangeAggregator<E, Object> aggregator;
+	private final AtomicReference<BiFunction<? super E, ? super E, ? extends Consumer<Boolean>>> listener;
+	private final AtomicReference<ChangeFeed<E, Void>> feed;
+	private final AtomicReference<Predicate<? super E>> claim;
+	private final AtomicReference<Predicate<? super E>> visible;
+	private final Abbreviator<? super E> abbreviator;
+	private final AtomicReferenceArray<Node<E>> tailNodes;
+	private final MembershipFilter filter;
+	private final ToIntFunction<? super E> hasher;
+	private final ContentionPolicy contention;
 	
 	private final E leastItem;
 	private final boolean leastInclusive;
@@ -33,11 +61,51 @@ public class ConcurrentSkipListSet<E> extends AbstractConcurrenNavigableSet<E> i
 	}
 	
 	public ConcurrentSkipListSet(Comparator<? super E> comparator) {
+		this(comparator, (RangeAggregator<? super E, ?>) null);
+	}
+
+	public ConcurrentSkipListSet(Comparator<? super E> comparator, RangeAggregator<? super E, ?> aggregator) {
+		this(comparator, aggregator, null);
+	}
+
+	public ConcurrentSkipListSet(Comparator<? super E> comparator, RangeAggregator<? super E, ?> aggregator
+			, Abbreviator<? super E> abbreviator) {
+		this(comparator, aggregator, abbreviator, null);
+	}
+
+	public ConcurrentSkipListSet(Comparator<? super E> comparator, RangeAggregator<? super E, ?> aggregator
+			, Abbreviator<? super E> abbreviator, MembershipFilter filter) {
+		this(comparator, aggregator, abbreviator, filter, (ContentionPolicy) null);
+	}
+
+	public ConcurrentSkipListSet(Comparator<? super E> comparator, RangeAggregator<? super E, ?> aggregator
+			, Abbreviator<? super E> abbreviator, MembershipFilter filter, ContentionPolicy contention) {
+		this(comparator, aggregator, abbreviator, filter, (comparator == null) ? MembershipFilter::naturalHash : null
+				, contention);
+	}
+
+	@SuppressWarnings("unchecked")
+	public ConcurrentSkipListSet(Comparator<? super E> comparator, RangeAggregator<? super E, ?> aggregator
+			, Abbreviator<? super E> abbreviator, MembershipFilter filter, ToIntFunction<? super E> hasher
+			, ContentionPolicy contention) {
 		super(comparator);
+		if ((abbreviator != null) && !Objects.equals(abbreviator.comparator(), comparator)) {
+			throw new IllegalArgumentException();
+		}
 		headNode = new Node<>(null, MAXIMUM_HEIGHT);
 		size = new AtomicInteger();
 		startLevel = new AtomicInteger();
 		nodeHeight = new AtomicInteger(1);
+		this.aggregator = (RangeAggregator<E, Object>) aggregator;
+		listener = new AtomicReference<>();
+		feed = new AtomicReference<>();
+		claim = new AtomicReference<>();
+		visible = new AtomicReference<>();
+		this.abbreviator = abbreviator;
+		tailNodes = new AtomicReferenceArray<>(MAXIMUM_HEIGHT);
+		this.filter = (hasher == null) ? null : filter;
+		this.hasher = hasher;
+		this.contention = (contention == null) ? ContentionPolicy.DEFAULT : contention;
 
 		leastItem = null;
 		leastInclusive = true;
@@ -56,14 +124,19 @@ public class ConcurrentSkipListSet<E> extends AbstractConcurrenNavigableSet<E> i
 	}
 	
 	protected ConcurrentSkipListSet(Comparator<? super E> comparator, Set<? extends E> set) {
+		this(comparator, set.iterator());
+	}
+
+	ConcurrentSkipListSet(Comparator<? super E> comparator, Iterator<? extends E> iterator) {
 		this(comparator);
 		
 		@SuppressWarnings("unchecked")
 		Node<E>[] leftNodes = new Node[MAXIMUM_HEIGHT];
 		Arrays.fill(leftNodes, headNode);
-		for (E item : set) {
+		while (iterator.hasNext()) {
+			E item = iterator.next();
 			int height = nodeHeight.get();
-			Node<E> node = new Node<>(item, height);
+			Node<E> node = newNode(item, height, false);
 			for (int level = 0; level < height; level++) {
 				node.setNext(level, headNode);
 				leftNodes[level].setNext(level, node);
@@ -73,6 +146,47 @@ public class ConcurrentSkipListSet<E> extends AbstractConcurrenNavigableSet<E> i
 		}
 	}
 
+	ConcurrentSkipListSet(Comparator<? super E> comparator, int size, IntFunction<? extends E> items) {
+		this(comparator);
+		if (size < 0) {
+			throw new IllegalArgumentException();
+		}
+
+		@SuppressWarnings("unchecked")
+		Node<E>[] nodes = new Node[size];
+		IntStream.range(0, size).parallel().forEach(index -> {
+			E item = items.apply(index);
+			if (item == null) {
+				throw new NullPointerException();
+			}
+			nodes[index] = newNode(item, 1 + Integer.numberOfTrailingZeros(~index), false);
+		});
+		IntStream.range(0, size).parallel().forEach(index -> {
+			Node<E> node = nodes[index];
+			if ((index + 1 < size) && (compare(node.item, nodes[index + 1].item) >= 0)) {
+				throw new IllegalArgumentException();
+			}
+			for (int level = 0; level < node.height(); level++) {
+				int nextIndex = index + (1 << level);
+				node.setNext(level, (nextIndex < size) ? nodes[nextIndex] : headNode);
+			}
+		});
+		for (int level = 0; (level < MAXIMUM_HEIGHT - 1) && ((1 << level) <= size); level++) {
+			headNode.setNext(level, nodes[(1 << level) - 1]);
+		}
+		this.size.set(size);
+		changeLevels(size);
+	}
+
+	public static <E> ConcurrentSkipListSet<E> ofSorted(Comparator<? super E> comparator, List<? extends E> items) {
+		List<? extends E> randomAccessItems = (items instanceof RandomAccess) ? items : new ArrayList<>(items);
+		return new ConcurrentSkipListSet<>(comparator, randomAccessItems.size(), randomAccessItems::get);
+	}
+
+	public static <E> ConcurrentSkipListSet<E> ofSorted(Comparator<? super E> comparator, Spliterator<? extends E> items) {
+		return ofSorted(comparator, StreamSupport.stream(items, true).collect(Collectors.toList()));
+	}
+
 	private ConcurrentSkipListSet(ConcurrentSkipListSet<E> set, E leastItem, boolean leastInclusive
 			, E greatestItem, boolean greatestInclusive, boolean descending) {
 		super((descending == set.descending) ? set.comparator() : Collections.reverseOrder(set.comparator()));
@@ -80,6 +194,16 @@ public class ConcurrentSkipListSet<E> extends AbstractConcurrenNavigableSet<E> i
 		size = set.size;
 		startLevel = set.startLevel;
 		nodeHeight = set.nodeHeight;
+		aggregator = set.aggregator;
+		listener = set.listener;
+		feed = set.feed;
+		claim = set.claim;
+		visible = set.visible;
+		abbreviator = set.abbreviator;
+		tailNodes = set.tailNodes;
+		filter = set.filter;
+		hasher = set.hasher;
+		contention = set.contention;
 
 		this.leastItem = leastItem;
 		this.leastInclusive = leastInclusive;
@@ -89,13 +213,27 @@ public class ConcurrentSkipListSet<E> extends AbstractConcurrenNavigableSet<E> i
 	}
 
 	protected E addOrGet(E item) {
+		return addOrGet(item, null);
+	}
+
+	private E addOrGet(E item, Node<E>[] fingerNodes) {
 		if (!inSubSet(item)) {
 			throw new IllegalArgumentException();
 		}
 		Finder finder = new Finder(item, true, false, false, false);
-		do {
+		if (fingerNodes == null) {
+			finder.seedTail();
+		} else {
+			finder.seed(fingerNodes);
+		}
+		int attempt = 0;
+		item = finder.find();
+		while (!finder.insert()) {
+			contention.onFailure(++attempt);
 			item = finder.find();
-		} while (!finder.insert());
+		}
+		contention.onSuccess(attempt);
+		finder.keep(fingerNodes);
 		return item;
 	}
 
@@ -105,14 +243,37 @@ public class ConcurrentSkipListSet<E> extends AbstractConcurrenNavigableSet<E> i
 	}
 
 	protected E removeAndGet(E item) {
+		return removeAndGet(item, null);
+	}
+
+	private E removeAndGet(E item, Node<E>[] fingerNodes) {
 		if (!inSubSet(item)) {
 			return null;  
 		}
-		Finder finder = new Finder(item, true, false, false, false);
+		Finder finder = new Finder(item, true, false, false, false).seed(fingerNodes);
 		item = finder.find();
+		finder.keep(fingerNodes);
 		return finder.remove() ? item : null;
 	}
 
+	E removeAndGetIf(E item, Predicate<? super E> claim) {
+		return removeAndGetIf(item, null, claim);
+	}
+
+	private E removeAndGetIf(E item, Node<E>[] fingerNodes, Predicate<? super E> claim) {
+		if (!inSubSet(item)) {
+			return null;  
+		}
+		Finder finder = new Finder(item, true, false, false, false).seed(fingerNodes);
+		item = finder.find();
+		finder.keep(fingerNodes);
+		if ((item == null) || !claim.test(item)) {
+			return null;
+		}
+		finder.remove(null);
+		return item;
+	}
+
 	@SuppressWarnings("unchecked")
 	@Override
 	public boolean remove(Object item) {
@@ -120,16 +281,36 @@ public class ConcurrentSkipListSet<E> extends AbstractConcurrenNavigableSet<E> i
 	}
 
 	protected E get(E item) {
-		if (!inSubSet(item)) {
+		return get(item, null);
+	}
+
+	private E get(E item, Node<E>[] fingerNodes) {
+		if (!inSubSet(item) || ((filter != null) && !filter.mightContain(hasher.applyAsInt(item)))) {
 			return null;  
 		}
-		return new Finder(item, true, false, false, false).find();
+		Finder finder = new Finder(item, true, false, false, false).seed(fingerNodes);
+		item = finder.find();
+		finder.keep(fingerNodes);
+		return item;
+	}
+
+	ContentionPolicy contention() {
+		return contention;
+	}
+
+	public Finger finger() {
+		return new Finger();
+	}
+
+	public FrozenNavigableSet<E> freeze() {
+		return new FrozenNavigableSet<>(this);
 	}
 
 	@SuppressWarnings("unchecked")
 	@Override
 	public boolean contains(Object item) {
-		return (get((E) item) != null);
+		E foundItem = get((E) item);
+		return (foundItem != null) && isVisible(foundItem);
 	}
 
 	@Override
@@ -137,7 +318,7 @@ public class ConcurrentSkipListSet<E> extends AbstractConcurrenNavigableSet<E> i
 		if (item == null) {
 			throw new NullPointerException();
 		}
-		return new Finder(item, true, !descending, descending, false).find();
+		return visibleFrom(new Finder(item, true, !descending, descending, false).find(), false);
 	}
 
 	@Override
@@ -145,7 +326,7 @@ public class ConcurrentSkipListSet<E> extends AbstractConcurrenNavigableSet<E> i
 		if (item == null) {
 			throw new NullPointerException();
 		}
-		return new Finder(item, true, descending, !descending, false).find();
+		return visibleFrom(new Finder(item, true, descending, !descending, false).find(), true);
 	}
 
 	@Override
@@ -153,7 +334,7 @@ public class ConcurrentSkipListSet<E> extends AbstractConcurrenNavigableSet<E> i
 		if (item == null) {
 			throw new NullPointerException();
 		}
-		return new Finder(item, false, !descending, descending, false).find();
+		return visibleFrom(new Finder(item, false, !descending, descending, false).find(), false);
 	}
 
 	@Override
@@ -161,11 +342,11 @@ public class ConcurrentSkipListSet<E> extends AbstractConcurrenNavigableSet<E> i
 		if (item == null) {
 			throw new NullPointerException();
 		}
-		return new Finder(item, false, descending, !descending, false).find();
+		return visibleFrom(new Finder(item, false, descending, !descending, false).find(), true);
 	}
 
 	protected E lowest() {
-		return new Finder(null, false, !descending, descending, false).find();
+		return visibleFrom(new Finder(null, false, !descending, descending, false).find(), false);
 	}
 
 	@Override
@@ -178,7 +359,7 @@ public class ConcurrentSkipListSet<E> extends AbstractConcurrenNavigableSet<E> i
 	}
 
 	protected E highest() {
-		return new Finder(null, false, descending, !descending, false).find();
+		return visibleFrom(new Finder(null, false, descending, !descending, false).find(), true);
 	}
 
 	@Override
@@ -193,26 +374,32 @@ public class ConcurrentSkipListSet<E> extends AbstractConcurrenNavigableSet<E> i
 	@Override
 	public E pollFirst() {
 		Finder finder = new Finder(null, false, !descending, descending, false);
-		E item;
-		do {
+		int attempt = 0;
+		E item = finder.find();
+		while (!finder.remove()) {
+			contention.onFailure(++attempt);
 			item = finder.find();
-		} while (!finder.remove());
+		}
+		contention.onSuccess(attempt);
 		return item;
 	}
 
 	@Override
 	public E pollLast() {
 		Finder finder = new Finder(null, false, descending, !descending, false);
-		E item;
-		do {
+		int attempt = 0;
+		E item = finder.find();
+		while (!finder.remove()) {
+			contention.onFailure(++attempt);
 			item = finder.find();
-		} while (!finder.remove());
+		}
+		contention.onSuccess(attempt);
 		return item;
 	}
 
 	@Override
 	public boolean isEmpty() {
-		return (new Finder(null, false, !descending, descending, false).find() == null);
+		return (lowest() == null);
 	}
 
 	@Override
@@ -266,11 +453,215 @@ public class ConcurrentSkipListSet<E> extends AbstractConcurrenNavigableSet<E> i
 			: doSubSet(fromItem, fromInclusive, null, false);
 	}
 
+	RangeAggregator<? super E, ?> aggregator() {
+		return aggregator;
+	}
+
+	Object aggregate() {
+		return new Finder(null, false, true, false, false).aggregate();
+	}
+
+	List<NavigableSet<E>> partitions(long threshold, int parts) {
+		List<E> pivots = new Finder(null, false, true, false, false).pivots(threshold, parts);
+		if (pivots.isEmpty()) {
+			return Collections.singletonList(this);
+		}
+		if (descending) {
+			Collections.reverse(pivots);
+		}
+		List<NavigableSet<E>> partitions = new ArrayList<>(pivots.size() + 1);
+		partitions.add(headSet(pivots.get(0), false));
+		for (int index = 1; index < pivots.size(); index++) {
+			partitions.add(subSet(pivots.get(index - 1), true, pivots.get(index), false));
+		}
+		partitions.add(tailSet(pivots.get(pivots.size() - 1), true));
+		return partitions;
+	}
+
+	public ChangeFeed<E, Void> changeFeed() {
+		ChangeFeed<E, Void> currentFeed = feed.get();
+		if (currentFeed == null) {
+			ChangeFeed<E, Void> createdFeed = new ChangeFeed<>(ChangeFeed.DEFAULT_CAPACITY);
+			if (feed.compareAndSet(null, createdFeed)) {
+				listen((oldItem, newItem) -> (oldItem == null)
+						? createdFeed.reserve(ChangeFeed.Operation.INSERT, newItem, null, null)
+						: createdFeed.reserve(ChangeFeed.Operation.REMOVE, oldItem, null, null));
+			}
+			currentFeed = feed.get();
+		}
+		return currentFeed;
+	}
+
+	void listen(BiFunction<? super E, ? super E, ? extends Consumer<Boolean>> listener) {
+		if (!this.listener.compareAndSet(null, listener)) {
+			throw new IllegalStateException();
+		}
+	}
+
+	void claimOnRemove(Predicate<? super E> claim) {
+		if (!this.claim.compareAndSet(null, claim)) {
+			throw new IllegalStateException();
+		}
+	}
+
+	void showIf(Predicate<? super E> visible) {
+		if (!this.visible.compareAndSet(null, visible)) {
+			throw new IllegalStateException();
+		}
+	}
+
+	private boolean isVisible(E item) {
+		Predicate<? super E> currentVisible = visible.get();
+		return (currentVisible == null) || currentVisible.test(item);
+	}
+
+	private E visibleFrom(E item, boolean lower) {
+		while ((item != null) && !isVisible(item)) {
+			item = lower ? lower(item) : higher(item);
+		}
+		return item;
+	}
+
+	private Consumer<Boolean> changing(E oldItem, E newItem) {
+		BiFunction<? super E, ? super E, ? extends Consumer<Boolean>> currentListener = listener.get();
+		return (currentListener == null) ? null : currentListener.apply(oldItem, newItem);
+	}
+
+	private static void changed(Consumer<Boolean> change, boolean done) {
+		if (change != null) {
+			change.accept(done);
+		}
+	}
+
+	void reaggregate(E item) {
+		if (aggregator == null) {
+			return;
+		}
+		new Finder(item, true, false, false, false).invalidatePath();
+	}
+
 	@Override
 	public ConcurrentSkipListSet<E> clone() {
 		return new ConcurrentSkipListSet<>(this);
 	}
 
+	public static <E> ConcurrentSkipListSet<E> union(SortedSet<E> set1, SortedSet<E> set2) {
+		return union(Arrays.asList(set1, set2));
+	}
+
+	public static <E> ConcurrentSkipListSet<E> union(List<? extends SortedSet<E>> sets) {
+		Comparator<? super E> comparator = comparatorOf(sets);
+		PriorityQueue<Source<E>> sources = new PriorityQueue<>(sets.size()
+				, (source1, source2) -> compare(comparator, source1.item, source2.item));
+		for (SortedSet<E> set : sets) {
+			Source<E> source = new Source<>(set.iterator());
+			if (source.advance()) {
+				sources.add(source);
+			}
+		}
+		return new ConcurrentSkipListSet<>(comparator, new MergingIterator<E>() {
+
+			@Override
+			protected E advance() {
+				Source<E> source = sources.poll();
+				if (source == null) {
+					return null;
+				}
+				E item = source.item;
+				while (true) {
+					if (source.advance()) {
+						sources.add(source);
+					}
+					source = sources.peek();
+					if ((source == null) || (compare(comparator, source.item, item) != 0)) {
+						return item;
+					}
+					sources.poll();
+				}
+			}
+
+		});
+	}
+
+	public static <E> ConcurrentSkipListSet<E> intersection(SortedSet<E> set1, SortedSet<E> set2) {
+		return intersection(Arrays.asList(set1, set2));
+	}
+
+	public static <E> ConcurrentSkipListSet<E> intersection(List<? extends SortedSet<E>> sets) {
+		Comparator<? super E> comparator = comparatorOf(sets);
+		List<Source<E>> sources = new ArrayList<>(sets.size());
+		for (SortedSet<E> set : sets) {
+			sources.add(new Source<>(set.iterator()));
+		}
+		return new ConcurrentSkipListSet<>(comparator, new MergingIterator<E>() {
+
+			@Override
+			protected E advance() {
+				if (!sources.get(0).advance()) {
+					return null;
+				}
+				E item = sources.get(0).item;
+				int matched = 1;
+				for (int index = 1; matched < sources.size(); index = (index + 1) % sources.size()) {
+					Source<E> source = sources.get(index);
+					if (!source.advanceTo(comparator, item)) {
+						return null;
+					}
+					if (compare(comparator, source.item, item) == 0) {
+						matched++;
+					} else {
+						item = source.item;
+						matched = 1;
+					}
+				}
+				return item;
+			}
+
+		});
+	}
+
+	public static <E> ConcurrentSkipListSet<E> difference(SortedSet<E> set1, SortedSet<E> set2) {
+		Comparator<? super E> comparator = comparatorOf(Arrays.asList(set1, set2));
+		Source<E> source = new Source<>(set1.iterator());
+		Source<E> excludedSource = new Source<>(set2.iterator());
+		return new ConcurrentSkipListSet<>(comparator, new MergingIterator<E>() {
+
+			private boolean excludedLeft = true;
+
+			@Override
+			protected E advance() {
+				while (source.advance()) {
+					if (excludedLeft) {
+						excludedLeft = excludedSource.advanceTo(comparator, source.item);
+					}
+					if (!excludedLeft || (compare(comparator, excludedSource.item, source.item) != 0)) {
+						return source.item;
+					}
+				}
+				return null;
+			}
+
+		});
+	}
+
+	private static <E> Comparator<? super E> comparatorOf(List<? extends SortedSet<E>> sets) {
+		if (sets.isEmpty()) {
+			throw new IllegalArgumentException();
+		}
+		Comparator<? super E> comparator = sets.get(0).comparator();
+		for (SortedSet<E> set : sets) {
+			if (!Objects.equals(comparator, set.comparator())) {
+				throw new IllegalArgumentException();
+			}
+		}
+		return comparator;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <E> int compare(Comparator<? super E> comparator, E item1, E item2) {
+		return (comparator == null) ? ((Comparable<? super E>) item1).compareTo(item2) : comparator.compare(item1, item2);
+	}
+
 	private NavigableSet<E> doSubSet(E leastItem, boolean leastInclusive, E greatestItem, boolean greatestInclusive) {
 		boolean ok;
 		if (leastItem == null) {
@@ -291,7 +682,7 @@ public class ConcurrentSkipListSet<E> extends AbstractConcurrenNavigableSet<E> i
 		return new ConcurrentSkipListSet<>(this, leastItem, leastInclusive, greatestItem, greatestInclusive, descending);
 	}
 	
-	private boolean inSubSet(E item) {
+	boolean inSubSet(E item) {
 		if (item == null) {
 			throw new NullPointerException();
 		}
@@ -321,8 +712,20 @@ public class ConcurrentSkipListSet<E> extends AbstractConcurrenNavigableSet<E> i
 		return descending ? -result : result;
 	}
 
+	private Node<E> newNode(E item, int height, boolean summarized) {
+		if (abbreviator == null) {
+			return summarized ? new SummarizedNode<>(item, height) : new Node<>(item, height);
+		}
+		long prefix = abbreviator.abbreviate(item);
+		return summarized ? new AbbreviatedSummarizedNode<>(item, height, prefix)
+				: new AbbreviatedNode<>(item, height, prefix);
+	}
+
 	private void changeSize(boolean increase) {
-		int sise = increase ? this.size.incrementAndGet() : this.size.decrementAndGet();
+		changeLevels(increase ? this.size.incrementAndGet() : this.size.decrementAndGet());
+	}
+
+	private void changeLevels(int sise) {
 		int n = 1;
 		int startLevel = -1;
 		int nodeHeight = 1;
@@ -335,6 +738,57 @@ public class ConcurrentSkipListSet<E> extends AbstractConcurrenNavigableSet<E> i
 		this.nodeHeight.set(nodeHeight);
 	}
 
+	public class Finger {
+
+		private final Node<E>[] nodes;
+		private final Thread owner;
+
+		@SuppressWarnings("unchecked")
+		private Finger() {
+			nodes = new Node[MAXIMUM_HEIGHT + 1];
+			owner = Thread.currentThread();
+		}
+
+		public boolean add(E item) {
+			return (addOrGet(item) == null);
+		}
+
+		@SuppressWarnings("unchecked")
+		public boolean remove(Object item) {
+			return (removeAndGet((E) item) != null);
+		}
+
+		@SuppressWarnings("unchecked")
+		public boolean contains(Object item) {
+			E foundItem = get((E) item);
+			return (foundItem != null) && isVisible(foundItem);
+		}
+
+		E addOrGet(E item) {
+			return ConcurrentSkipListSet.this.addOrGet(item, nodes());
+		}
+
+		E removeAndGet(E item) {
+			return ConcurrentSkipListSet.this.removeAndGet(item, nodes());
+		}
+
+		E removeAndGetIf(E item, Predicate<? super E> claim) {
+			return ConcurrentSkipListSet.this.removeAndGetIf(item, nodes(), claim);
+		}
+
+		E get(E item) {
+			return ConcurrentSkipListSet.this.get(item, nodes());
+		}
+
+		private Node<E>[] nodes() {
+			if (Thread.currentThread() != owner) {
+				throw new IllegalStateException();
+			}
+			return nodes;
+		}
+
+	}
+
     private class SetIterator implements ConcurrentIterator<E> {
 
     	private boolean canMoveNext = true;
@@ -352,6 +806,9 @@ public class ConcurrentSkipListSet<E> extends AbstractConcurrenNavigableSet<E> i
 			if (canMoveNext) {
 				canMoveNext = false;
 				item = finder.find();
+				while ((item != null) && !isVisible(item)) {
+					item = finder.find();
+				}
 			}
 			return (item != null);
 		}
@@ -366,6 +823,44 @@ public class ConcurrentSkipListSet<E> extends AbstractConcurrenNavigableSet<E> i
 			return item;
 		}
 
+		@Override
+		public int nextBatch(E[] batch) {
+			if (descending) {
+				return ConcurrentIterator.super.nextBatch(batch);
+			}
+			if ((batch.length == 0) || !hasNext()) {
+				return 0;
+			}
+			batch[0] = item;
+			canRemove = true;
+			int count = finder.walk(batch, 1, null);
+			canMoveNext = (count == batch.length);
+			if (!canMoveNext) {
+				item = null;
+			}
+			return count;
+		}
+
+		@Override
+		public void forEachRemaining(Consumer<? super E> action) {
+			if (action == null) {
+				throw new NullPointerException();
+			}
+			if (descending) {
+				ConcurrentIterator.super.forEachRemaining(action);
+				return;
+			}
+			if (!hasNext()) {
+				return;
+			}
+			canRemove = true;
+			canMoveNext = false;
+			E firstItem = item;
+			item = null;
+			action.accept(firstItem);
+			finder.walk(null, 0, action);
+		}
+
 		@Override
 		public boolean removeElement() {
 			if (!canRemove) {
@@ -391,6 +886,9 @@ public class ConcurrentSkipListSet<E> extends AbstractConcurrenNavigableSet<E> i
 		private int toLevel;
 		private Node<E> foundNode;
 		private Node<E> insertedNode;
+		private E abbreviatedItem;
+		private long prefix;
+		private int seedLevel = -1;
 				
 		@SuppressWarnings("unchecked")
 		public Finder(E item, boolean equal, boolean greater, boolean less, boolean iteration) {
@@ -413,7 +911,7 @@ public class ConcurrentSkipListSet<E> extends AbstractConcurrenNavigableSet<E> i
 						equal = leastInclusive;
 					}
 					if (item == null) {
-						return (foundNode = nextNode(0, headNode)).item;
+						return bounded(nextNode(0, headNode));
 					}
 				} else if (less) {
 					if ((item == null) || !lessThenGreatest(item, equal)) { 
@@ -421,11 +919,14 @@ public class ConcurrentSkipListSet<E> extends AbstractConcurrenNavigableSet<E> i
 						equal = greatestInclusive;
 					}	
 				}
-				fromLevel = startLevel.get();
+				fromLevel = (seedLevel >= 0) ? seedLevel : startLevel.get();
 			} else {
 				if (greater) {
 					if (iteration) {
-						return (foundNode = nextNode(0, foundNode)).item;
+						return bounded(nextNode(0, foundNode));
+					}
+					if (item == null) {
+						return bounded(nextNode(0, headNode));
 					}
 				} else {
 					if (iteration) {
@@ -446,13 +947,16 @@ public class ConcurrentSkipListSet<E> extends AbstractConcurrenNavigableSet<E> i
 				rightNode = nextNode(fromLevel, leftNode);
 				leftNodes[fromLevel] = leftNode;
 				rightNodes[fromLevel] = rightNode; 
-				int compare = (rightNode == headNode) ? 1 : (item == null) ? -1 : compare(rightNode.item, item);
+				int compare = (rightNode == headNode) ? 1 : (item == null) ? -1 : compareNode(rightNode);
 				if (compare < 0) {
 					leftNode = rightNode;
 				} else if (compare > 0) {
 					fromLevel--;
 				} else if (equal) {
-					return (foundNode = rightNode).item;
+					if (lessThenGreatest(rightNode.item, true) && greaterThenLeast(rightNode.item, true)) {
+						return (foundNode = rightNode).item;
+					}
+					return (foundNode = headNode).item;
 				} else if (greater) {
 					leftNode = rightNode;
 				} else {
@@ -473,42 +977,280 @@ public class ConcurrentSkipListSet<E> extends AbstractConcurrenNavigableSet<E> i
 			return (foundNode = headNode).item;
 		}
 		
+		public Finder seed(Node<E>[] fingerNodes) {
+			if (fingerNodes == null) {
+				return this;
+			}
+			int topLevel = startLevel.get();
+			for (int level = 0; (level < topLevel) && (fingerNodes[level] != null); level++) {
+				Node<E> node = fingerNodes[level];
+				if ((node != headNode) && (node.isMarked(level) || (compareNode(node) >= 0))) {
+					continue;
+				}
+				Node<E> nextNode = nextNode(level, node);
+				if ((nextNode == headNode) || (compareNode(nextNode) >= 0)) {
+					for (int upperLevel = level; upperLevel < MAXIMUM_HEIGHT; upperLevel++) {
+						Node<E> upperNode = fingerNodes[upperLevel];
+						leftNodes[upperLevel] = ((upperNode == null) || ((upperNode != headNode) 
+								&& (upperNode.isMarked(upperLevel) || !upperNode.isLinked(upperLevel)))) ? headNode : upperNode;
+					}
+					seedLevel = level;
+					return this;
+				}
+			}
+			return this;
+		}
+
+		public Finder seedTail() {
+			Node<E> tailNode = tailNodes.get(0);
+			if ((tailNode == null) || tailNode.isMarked(0) || (nextNode(0, tailNode) != headNode) 
+					|| (compareNode(tailNode) >= 0)) {
+				return this;
+			}
+			leftNodes[0] = tailNode;
+			int height = nodeHeight.get();
+			for (int level = 1; level < height; level++) {
+				Node<E> node = tailNodes.get(level);
+				if ((node == null) || node.isMarked(level) || !node.isLinked(level) || (compareNode(node) >= 0)) {
+					node = leftNodes[level - 1];
+					if ((node == headNode) || (level >= node.height()) || node.isMarked(level) || !node.isLinked(level)) {
+						if (nextNode(level, headNode) != headNode) {
+							Arrays.fill(leftNodes, 0, level, headNode);
+							return this;
+						}
+						node = headNode;
+					}
+				}
+				leftNodes[level] = node;
+			}
+			seedLevel = 0;
+			return this;
+		}
+
+		public void keep(Node<E>[] fingerNodes) {
+			if (fingerNodes == null) {
+				return;
+			}
+			System.arraycopy(leftNodes, 0, fingerNodes, 0, MAXIMUM_HEIGHT);
+			Node<E> node = (insertedNode != null) ? insertedNode : foundNode;
+			if ((node != null) && (node != headNode)) {
+				for (int level = 0; (level < node.height()) && node.isLinked(level); level++) {
+					fingerNodes[level] = node;
+				}
+			}
+		}
+
 		public boolean insert() {
 			if (foundNode != headNode) {
 				return true;
 			}
 			int height = nodeHeight.get();
-			insertedNode = new Node<>(item, height);
+			insertedNode = newNode(item, height, (aggregator != null));
 			insertedNode.setNext(0, rightNodes[0]);
+			if (filter != null) {
+				filter.add(hasher.applyAsInt(item));
+			}
+			changeSize(true);
+			Consumer<Boolean> change = changing(null, item);
 			if (!leftNodes[0].setNext(0, rightNodes[0], insertedNode)) {
+				changed(change, false);
+				changeSize(false);
+				if (filter != null) {
+					filter.remove(hasher.applyAsInt(item));
+				}
+				insertedNode = null;
 				return false;
 			}
-			changeSize(true);
+			changed(change, true);
 			fromLevel = toLevel = 1;
 			
 			while ((toLevel < height) && (find() == null)) {
-				insertedNode.setNext(toLevel, rightNodes[toLevel]);
+				if (!insertedNode.setNext(toLevel, insertedNode.getNext(toLevel), rightNodes[toLevel])) {
+					break;
+				}
 				if (leftNodes[toLevel].setNext(toLevel, rightNodes[toLevel], insertedNode)) {
 					fromLevel = ++toLevel;
 				}
 			}
+			if (nextNode(0, insertedNode) == headNode) {
+				for (int level = 0; level < toLevel; level++) {
+					tailNodes.lazySet(level, insertedNode);
+				}
+			}
+			reaggregate(insertedNode.item);
 			return true;
 		}
 
 		public boolean remove() {
+			return remove(claim.get());
+		}
+
+		public boolean remove(Predicate<? super E> itemClaim) {
 			if (foundNode == headNode) {
 				return true;
 			}
-			boolean ok = false;
-			for (int level = foundNode.height() - 1; level >= 0; level--) {
-				ok = foundNode.mark(level); 
+			if ((itemClaim != null) && !itemClaim.test(foundNode.item)) {
+				return false;
 			}
+			for (int level = foundNode.height() - 1; level > 0; level--) {
+				foundNode.mark(level, contention);
+			}
+			Consumer<Boolean> change = changing(foundNode.item, null);
+			boolean ok = foundNode.mark(0, contention);
+			changed(change, ok);
 			if (ok) {
+				if (filter != null) {
+					filter.remove(hasher.applyAsInt(foundNode.item));
+				}
 				changeSize(false);
+				reaggregate(foundNode.item);
 			}
 			return ok;
 		}
 		
+		public Object aggregate() {
+			find();
+			Object summary = aggregator.identity();
+			Node<E> node = foundNode;
+			int level = 0;
+			while ((node != headNode) && lessThenGreatest(node.item, true)) {
+				for (; (level + 1 < node.height()) && spans(node, level + 1); level++);
+				for (; (level > 0) && !spans(node, level); level--);
+				summary = aggregator.combine(summary, summaryOf(node, level));
+				node = nextNode(level, node);
+			}
+			return summary;
+		}
+
+		public List<E> pivots(long threshold, int parts) {
+			List<E> items = new ArrayList<>();
+			Node<E> node = headNode;
+			for (int level = MAXIMUM_HEIGHT - 1; level > 0; level--) {
+				Node<E> nextNode;
+				while (((nextNode = nextNode(level, node)) != headNode) && !greaterThenLeast(nextNode.item, true)) {
+					node = nextNode;
+				}
+				items.clear();
+				for (; (nextNode != headNode) && lessThenGreatest(nextNode.item, true); nextNode = nextNode(level, nextNode)) {
+					items.add(nextNode.item);
+				}
+				if ((items.size() >= parts) || (level == 1)) {
+					if (items.isEmpty() || (((long) items.size() << level) < threshold)) {
+						break;
+					}
+					List<E> pivots = new ArrayList<>(parts);
+					for (int part = 1; part < parts; part++) {
+						E pivot = items.get((int) ((long) part * items.size() / parts));
+						if (pivots.isEmpty() || (pivots.get(pivots.size() - 1) != pivot)) {
+							pivots.add(pivot);
+						}
+					}
+					return pivots;
+				}
+			}
+			return new ArrayList<>();
+		}
+
+		public void invalidatePath() {
+			Node<E> node = headNode;
+			Node<E> itemNode = null;
+			for (int level = MAXIMUM_HEIGHT - 1; level >= 0; level--) {
+				Node<E> nextNode;
+				int compare;
+				while ((compare = ((nextNode = nextNode(level, node)) == headNode) ? 1 
+						: compare(nextNode.item, item)) < 0) {
+					node = nextNode;
+				}
+				if ((compare == 0) && (itemNode == null)) {
+					itemNode = nextNode;
+				}
+				leftNodes[level] = node;
+			}
+			for (int level = 0; level < MAXIMUM_HEIGHT; level++) {
+				Node<E> leftNode = leftNodes[level];
+				if ((itemNode != null) && (level < itemNode.height())) {
+					if ((level > 0) && (leftNode != headNode)) {
+						leftNode.invalidate(level);
+					}
+					itemNode.invalidate(level);
+				} else if (leftNode != headNode) {
+					leftNode.invalidate(level);
+				} else {
+					break;
+				}
+			}
+		}
+
+		private boolean spans(Node<E> node, int level) {
+			if (!node.isLinked(level)) {
+				return false;
+			}
+			Node<E> nextNode = nextNode(level, node);
+			return (nextNode == headNode) ? (greatestItem == null) : lessThenGreatest(nextNode.item, true);
+		}
+
+		private Object summaryOf(Node<E> node, int level) {
+			Object stale = node.summary(level);
+			if ((stale != null) && !(stale instanceof Stale)) {
+				return (stale == NULL_SUMMARY) ? null : stale;
+			}
+			Object summary;
+			if (level == 0) {
+				summary = aggregator.lift(node.item);
+			} else {
+				Node<E> lastNode = nextNode(level, node);
+				summary = summaryOf(node, level - 1);
+				for (Node<E> childNode = nextNode(level - 1, node); (childNode != headNode) 
+						&& ((lastNode == headNode) || (compare(childNode.item, lastNode.item) < 0))
+						; childNode = nextNode(level - 1, childNode)) {
+					summary = aggregator.combine(summary, summaryOf(childNode, level - 1));
+				}
+			}
+			node.summarize(level, stale, (summary == null) ? NULL_SUMMARY : summary);
+			return summary;
+		}
+
+		private int compareNode(Node<E> node) {
+			if (abbreviator != null) {
+				if (abbreviatedItem != item) {
+					abbreviatedItem = item;
+					prefix = abbreviator.abbreviate(item);
+				}
+				int result = Long.compare(node.prefix(), prefix);
+				if ((result != 0) || abbreviator.isExact()) {
+					return result;
+				}
+			}
+			return compare(node.item, item);
+		}
+
+		public int walk(E[] batch, int count, Consumer<? super E> action) {
+			Node<E> node = foundNode;
+			while ((batch == null) || (count < batch.length)) {
+				Node<E> nextNode = nextNode(0, node);
+				if ((nextNode.item == null) || !lessThenGreatest(nextNode.item, true)) {
+					break;
+				}
+				node = nextNode;
+				if (!isVisible(node.item)) {
+					continue;
+				}
+				if (batch == null) {
+					foundNode = node;
+					action.accept(node.item);
+				} else {
+					batch[count] = node.item;
+				}
+				count++;
+			}
+			foundNode = node;
+			return count;
+		}
+
+		private E bounded(Node<E> node) {
+			return (foundNode = ((node.item == null) || lessThenGreatest(node.item, true)) ? node : headNode).item;
+		}
+
 		private Node<E> nextNode(int level, Node<E> node) {
 			Node<E> expectNode = node.getNext(level);
 			Node<E> nextNode = expectNode;
@@ -523,50 +1265,216 @@ public class ConcurrentSkipListSet<E> extends AbstractConcurrenNavigableSet<E> i
 	
     }
 
+	private static class Source<E> {
+
+		private final Iterator<E> iterator;
+		private E item;
+
+		public Source(Iterator<E> iterator) {
+			this.iterator = iterator;
+		}
+
+		public boolean advance() {
+			if (!iterator.hasNext()) {
+				return false;
+			}
+			item = iterator.next();
+			return true;
+		}
+
+		public boolean advanceTo(Comparator<? super E> comparator, E target) {
+			while ((item == null) || (compare(comparator, item, target) < 0)) {
+				if (!advance()) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+	}
+
+	private static abstract class MergingIterator<E> implements Iterator<E> {
+
+		private E item;
+		private boolean ready;
+
+		@Override
+		public boolean hasNext() {
+			if (!ready) {
+				item = advance();
+				ready = true;
+			}
+			return (item != null);
+		}
+
+		@Override
+		public E next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			ready = false;
+			return item;
+		}
+
+		protected abstract E advance();
+
+	}
+
 	private static class Node<E> {
 
+		@SuppressWarnings("rawtypes")
+		private static final AtomicReferenceFieldUpdater<Node, Object> NEXT
+				= AtomicReferenceFieldUpdater.newUpdater(Node.class, Object.class, "next");
+
     	private final E item;
-    	private final AtomicMarkableReference<Node<E>>[] next;
+    	private final AtomicReferenceArray<Object> upperNext;
+    	private volatile Object next;
 
-		@SuppressWarnings("unchecked")
 		public Node(E item, int height) {
         	this.item = item;
-        	next = new AtomicMarkableReference[height];
-        	for (int level = 0; level < height; level++) {
-        		next[level] = new AtomicMarkableReference<>(this, false);
+        	next = this;
+        	if (height > 1) {
+        		upperNext = new AtomicReferenceArray<>(height - 1);
+        		for (int level = 1; level < height; level++) {
+        			upperNext.lazySet(level - 1, this);
+        		}
+        	} else {
+        		upperNext = null;
         	}
         }
         
 		public int height() {
-        	return next.length;
+        	return (upperNext == null) ? 1 : upperNext.length() + 1;
         }
    
 		public void setNext(int level, Node<E> updateNode) {
-			next[level].set(updateNode, false);
+			if (level == 0) {
+				next = updateNode;
+			} else {
+				upperNext.set(level - 1, updateNode);
+			}
 		}
 
 		public boolean setNext(int level, Node<E> expectNode, Node<E> updateNode) {
-			return next[level].compareAndSet(expectNode, updateNode, false, false);
+			return (level == 0) ? NEXT.compareAndSet(this, expectNode, updateNode)
+					: upperNext.compareAndSet(level - 1, expectNode, updateNode);
 		}
 
+		@SuppressWarnings("unchecked")
 		public Node <E> getNext(int level) {
-        	return next[level].getReference();
+			Object link = (level == 0) ? next : upperNext.get(level - 1);
+        	return (link instanceof Mark) ? ((Mark<E>) link).node : (Node<E>) link;
         }
 
-		public boolean mark(int level) {
-			do {
-				Node<E> reference = next[level].getReference();
-				if (next[level].compareAndSet(reference, reference, false, true)) {
+		@SuppressWarnings("unchecked")
+		public boolean mark(int level, ContentionPolicy contention) {
+			for (int attempt = 1;; attempt++) {
+				Object link = (level == 0) ? next : upperNext.get(level - 1);
+				if (link instanceof Mark) {
+					return false;
+				}
+				Mark<E> mark = new Mark<>((Node<E>) link);
+				if ((level == 0) ? NEXT.compareAndSet(this, link, mark) : upperNext.compareAndSet(level - 1, link, mark)) {
+					contention.onSuccess(attempt - 1);
 					return true;
 				}
-			} while (!next[level].isMarked());
-			return false;
+				contention.onFailure(attempt);
+			}
 		}
 
 		boolean isMarked(int level) {
-        	return next[level].isMarked();
+        	return (((level == 0) ? next : upperNext.get(level - 1)) instanceof Mark);
         }
 
+		boolean isLinked(int level) {
+			return (getNext(level) != this);
+		}
+
+		public long prefix() {
+			return 0;
+		}
+
+		public Object summary(int level) {
+			return null;
+		}
+
+		public void summarize(int level, Object stale, Object summary) {
+		}
+
+		public void invalidate(int level) {
+		}
+
     }
 
+	private static class AbbreviatedNode<E> extends Node<E> {
+
+		private final long prefix;
+
+		public AbbreviatedNode(E item, int height, long prefix) {
+			super(item, height);
+			this.prefix = prefix;
+		}
+
+		@Override
+		public long prefix() {
+			return prefix;
+		}
+
+	}
+
+	private static class SummarizedNode<E> extends Node<E> {
+
+		private final AtomicReferenceArray<Object> summaries;
+
+		public SummarizedNode(E item, int height) {
+			super(item, height);
+			summaries = new AtomicReferenceArray<>(height);
+		}
+
+		@Override
+		public Object summary(int level) {
+			return summaries.get(level);
+		}
+
+		@Override
+		public void summarize(int level, Object stale, Object summary) {
+			summaries.compareAndSet(level, stale, summary);
+		}
+
+		@Override
+		public void invalidate(int level) {
+			summaries.set(level, new Stale());
+		}
+
+	}
+
+	private static class AbbreviatedSummarizedNode<E> extends SummarizedNode<E> {
+
+		private final long prefix;
+
+		public AbbreviatedSummarizedNode(E item, int height, long prefix) {
+			super(item, height);
+			this.prefix = prefix;
+		}
+
+		@Override
+		public long prefix() {
+			return prefix;
+		}
+
+	}
+
+	private static class Mark<E> {
+
+		private final Node<E> node;
+
+		public Mark(Node<E> node) {
+			this.node = node;
+		}
+
+	}
+
+	private static class Stale {
+	}
+
 }
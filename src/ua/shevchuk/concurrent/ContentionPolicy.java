@@ -0,0 +1,83 @@
+package ua.shevchuk.concurrent;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+
+public interface ContentionPolicy {
+
+	ContentionPolicy DEFAULT = exponential(1 << 6);
+
+	void onFailure(int attempt);
+
+	default void onSuccess(int attempts) {
+	}
+
+	static ContentionPolicy immediate() {
+		return attempt -> {
+		};
+	}
+
+	static ContentionPolicy exponential(int maximumSpins) {
+		if (maximumSpins <= 0) {
+			throw new IllegalArgumentException();
+		}
+		return attempt -> {
+			int spins = 1 << Math.min(attempt - 1, Integer.SIZE - 2);
+			if (spins > maximumSpins) {
+				Thread.yield();
+			} else {
+				SpinWait.spin(spins);
+			}
+		};
+	}
+
+	static ContentionPolicy spinThenPark(int spins, long parkNanos) {
+		if ((spins < 0) || (parkNanos <= 0)) {
+			throw new IllegalArgumentException();
+		}
+		return attempt -> {
+			if (attempt <= spins) {
+				SpinWait.spin(1);
+			} else {
+				LockSupport.parkNanos(parkNanos);
+			}
+		};
+	}
+
+	static ContentionPolicy adaptive(int maximumSpins, long parkNanos) {
+		if ((maximumSpins <= 0) || (parkNanos <= 0)) {
+			throw new IllegalArgumentException();
+		}
+		return new ContentionPolicy() {
+
+			private static final int SCALE_BITS = 4;
+			private static final int DECAY_BITS = 3;
+			private static final int SAMPLE_MASK = (1 << 6) - 1;
+
+			private final ThreadLocal<int[]> failureRate = ThreadLocal.withInitial(() -> new int[1]);
+
+			@Override
+			public void onFailure(int attempt) {
+				int expectedAttempt = attempt + (failureRate.get()[0] >>> SCALE_BITS);
+				int spins = 1 << Math.min(expectedAttempt - 1, Integer.SIZE - 2);
+				if (spins <= maximumSpins) {
+					SpinWait.spin(spins);
+				} else if (attempt == 1) {
+					Thread.yield();
+				} else {
+					LockSupport.parkNanos(parkNanos);
+				}
+			}
+
+			@Override
+			public void onSuccess(int attempts) {
+				if ((attempts > 0) || ((ThreadLocalRandom.current().nextInt() & SAMPLE_MASK) == 0)) {
+					int[] rate = failureRate.get();
+					rate[0] += ((attempts << SCALE_BITS) - rate[0]) >> DECAY_BITS;
+				}
+			}
+
+		};
+	}
+
+}
@@ -0,0 +1,80 @@
+package ua.shevchuk.concurrent;
+
+import java.util.Comparator;
+
+class EytzingerIndex<E> {
+
+	private final Comparator<? super E> comparator;
+	private final Object[] items;
+	private final Object[] tree;
+	private final int[] ranks;
+
+	public EytzingerIndex(Comparator<? super E> comparator, Object[] items) {
+		this.comparator = comparator;
+		this.items = items;
+		for (int index = 0; index < items.length; index++) {
+			if (items[index] == null) {
+				throw new NullPointerException();
+			}
+			if ((index > 0) && (compare(itemAt(index - 1), itemAt(index)) >= 0)) {
+				throw new IllegalArgumentException();
+			}
+		}
+		tree = new Object[items.length + 1];
+		ranks = new int[items.length + 1];
+		layout(0, 1);
+	}
+
+	public Comparator<? super E> comparator() {
+		return comparator;
+	}
+
+	public int size() {
+		return items.length;
+	}
+
+	@SuppressWarnings("unchecked")
+	public E itemAt(int index) {
+		return (E) items[index];
+	}
+
+	public int ceilingIndex(E item, boolean inclusive) {
+		if (item == null) {
+			throw new NullPointerException();
+		}
+		int bias = inclusive ? 0 : 1;
+		int node = 1;
+		while (node < tree.length) {
+			@SuppressWarnings("unchecked")
+			int compare = compare((E) tree[node], item);
+			node = (node << 1) + ((compare < bias) ? 1 : 0);
+		}
+		node >>>= Integer.numberOfTrailingZeros(~node) + 1;
+		return (node == 0) ? items.length : ranks[node];
+	}
+
+	public int floorIndex(E item, boolean inclusive) {
+		return ceilingIndex(item, !inclusive) - 1;
+	}
+
+	public int indexOf(E item) {
+		int index = ceilingIndex(item, true);
+		return ((index < items.length) && (compare(itemAt(index), item) == 0)) ? index : -1;
+	}
+
+	@SuppressWarnings("unchecked")
+	public int compare(E item1, E item2) {
+		return (comparator == null) ? ((Comparable<? super E>) item1).compareTo(item2) : comparator.compare(item1, item2);
+	}
+
+	private int layout(int index, int node) {
+		if (node < tree.length) {
+			index = layout(index, node << 1);
+			tree[node] = items[index];
+			ranks[node] = index++;
+			index = layout(index, (node << 1) + 1);
+		}
+		return index;
+	}
+
+}
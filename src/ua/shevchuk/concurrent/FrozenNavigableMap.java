@@ -0,0 +1,290 @@
+package ua.shevchuk.concurrent;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SortedMap;
+
+public class FrozenNavigableMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K, V> {
+
+	private final EytzingerIndex<K> index;
+	private final Object[] values;
+	private final int low;
+	private final int high;
+	private final boolean descending;
+
+	public FrozenNavigableMap(SortedMap<K, ? extends V> map) {
+		this(map.comparator(), new ArrayList<>(map.entrySet()));
+	}
+
+	private FrozenNavigableMap(Comparator<? super K> comparator, List<? extends Map.Entry<K, ? extends V>> entries) {
+		Object[] keys = new Object[entries.size()];
+		values = new Object[entries.size()];
+		for (int position = 0; position < keys.length; position++) {
+			Map.Entry<K, ? extends V> entry = entries.get(position);
+			keys[position] = entry.getKey();
+			values[position] = entry.getValue();
+		}
+		index = new EytzingerIndex<>(comparator, keys);
+		low = 0;
+		high = keys.length;
+		descending = false;
+	}
+
+	private FrozenNavigableMap(FrozenNavigableMap<K, V> map, int low, int high, boolean descending) {
+		index = map.index;
+		values = map.values;
+		this.low = low;
+		this.high = high;
+		this.descending = descending;
+	}
+
+	@Override
+	public Comparator<? super K> comparator() {
+		return descending ? Collections.reverseOrder(index.comparator()) : index.comparator();
+	}
+
+	@Override
+	public int size() {
+		return high - low;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return (high == low);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public boolean containsKey(Object key) {
+		int position = index.indexOf((K) key);
+		return (position >= low) && (position < high);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public V get(Object key) {
+		int position = index.indexOf((K) key);
+		return ((position >= low) && (position < high)) ? (V) values[position] : null;
+	}
+
+	@Override
+	public Map.Entry<K, V> ceilingEntry(K key) {
+		return entryAt(descending ? floorPosition(key, true) : ceilingPosition(key, true));
+	}
+
+	@Override
+	public K ceilingKey(K key) {
+		return keyAt(descending ? floorPosition(key, true) : ceilingPosition(key, true));
+	}
+
+	@Override
+	public Map.Entry<K, V> higherEntry(K key) {
+		return entryAt(descending ? floorPosition(key, false) : ceilingPosition(key, false));
+	}
+
+	@Override
+	public K higherKey(K key) {
+		return keyAt(descending ? floorPosition(key, false) : ceilingPosition(key, false));
+	}
+
+	@Override
+	public Map.Entry<K, V> floorEntry(K key) {
+		return entryAt(descending ? ceilingPosition(key, true) : floorPosition(key, true));
+	}
+
+	@Override
+	public K floorKey(K key) {
+		return keyAt(descending ? ceilingPosition(key, true) : floorPosition(key, true));
+	}
+
+	@Override
+	public Map.Entry<K, V> lowerEntry(K key) {
+		return entryAt(descending ? ceilingPosition(key, false) : floorPosition(key, false));
+	}
+
+	@Override
+	public K lowerKey(K key) {
+		return keyAt(descending ? ceilingPosition(key, false) : floorPosition(key, false));
+	}
+
+	@Override
+	public Map.Entry<K, V> firstEntry() {
+		return entryAt(descending ? high - 1 : low);
+	}
+
+	@Override
+	public K firstKey() {
+		if (isEmpty()) {
+			throw new NoSuchElementException();
+		}
+		return index.itemAt(descending ? high - 1 : low);
+	}
+
+	@Override
+	public Map.Entry<K, V> lastEntry() {
+		return entryAt(descending ? low : high - 1);
+	}
+
+	@Override
+	public K lastKey() {
+		if (isEmpty()) {
+			throw new NoSuchElementException();
+		}
+		return index.itemAt(descending ? low : high - 1);
+	}
+
+	@Override
+	public Map.Entry<K, V> pollFirstEntry() {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public Map.Entry<K, V> pollLastEntry() {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public Set<Map.Entry<K, V>> entrySet() {
+		return new AbstractSet<Map.Entry<K, V>>() {
+
+			@Override
+			public Iterator<Map.Entry<K, V>> iterator() {
+				return new EntryIterator();
+			}
+
+			@Override
+			public int size() {
+				return high - low;
+			}
+
+		};
+	}
+
+	@Override
+	public NavigableSet<K> keySet() {
+		return navigableKeySet();
+	}
+
+	@Override
+	public NavigableSet<K> navigableKeySet() {
+		return new FrozenNavigableSet<>(index, low, high, descending);
+	}
+
+	@Override
+	public NavigableSet<K> descendingKeySet() {
+		return new FrozenNavigableSet<>(index, low, high, !descending);
+	}
+
+	@Override
+	public NavigableMap<K, V> descendingMap() {
+		return new FrozenNavigableMap<>(this, low, high, !descending);
+	}
+
+	@Override
+	public NavigableMap<K, V> subMap(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+		if ((fromKey == null) || (toKey == null)) {
+			throw new NullPointerException();
+		}
+		int compare = index.compare(fromKey, toKey);
+		if (descending ? (compare < 0) : (compare > 0)) {
+			throw new IllegalArgumentException();
+		}
+		return descending ? range(toKey, toInclusive, fromKey, fromInclusive)
+				: range(fromKey, fromInclusive, toKey, toInclusive);
+	}
+
+	@Override
+	public NavigableMap<K, V> headMap(K toKey, boolean toInclusive) {
+		if (toKey == null) {
+			throw new NullPointerException();
+		}
+		return descending ? range(toKey, toInclusive, null, false) : range(null, false, toKey, toInclusive);
+	}
+
+	@Override
+	public NavigableMap<K, V> tailMap(K fromKey, boolean fromInclusive) {
+		if (fromKey == null) {
+			throw new NullPointerException();
+		}
+		return descending ? range(null, false, fromKey, fromInclusive) : range(fromKey, fromInclusive, null, false);
+	}
+
+	@Override
+	public SortedMap<K, V> subMap(K fromKey, K toKey) {
+		return subMap(fromKey, true, toKey, false);
+	}
+
+	@Override
+	public SortedMap<K, V> headMap(K toKey) {
+		return headMap(toKey, false);
+	}
+
+	@Override
+	public SortedMap<K, V> tailMap(K fromKey) {
+		return tailMap(fromKey, true);
+	}
+
+	private FrozenNavigableMap<K, V> range(K leastKey, boolean leastInclusive, K greatestKey, boolean greatestInclusive) {
+		int rangeLow = (leastKey == null) ? low : index.ceilingIndex(leastKey, leastInclusive);
+		int rangeHigh = (greatestKey == null) ? high : index.floorIndex(greatestKey, greatestInclusive) + 1;
+		if ((leastKey != null) && ((rangeLow < low) || (index.floorIndex(leastKey, leastInclusive) >= high))
+				|| (greatestKey != null) && ((rangeHigh > high) || (index.ceilingIndex(greatestKey, greatestInclusive) < low))) {
+			throw new IllegalArgumentException();
+		}
+		return new FrozenNavigableMap<>(this, rangeLow, Math.max(rangeLow, rangeHigh), descending);
+	}
+
+	private int ceilingPosition(K key, boolean inclusive) {
+		return Math.max(low, index.ceilingIndex(key, inclusive));
+	}
+
+	private int floorPosition(K key, boolean inclusive) {
+		return Math.min(high - 1, index.floorIndex(key, inclusive));
+	}
+
+	private K keyAt(int position) {
+		return ((position >= low) && (position < high)) ? index.itemAt(position) : null;
+	}
+
+	@SuppressWarnings("unchecked")
+	private Map.Entry<K, V> entryAt(int position) {
+		return ((position >= low) && (position < high))
+				? new AbstractMap.SimpleImmutableEntry<>(index.itemAt(position), (V) values[position]) : null;
+	}
+
+	private class EntryIterator implements Iterator<Map.Entry<K, V>> {
+
+		private int position;
+
+		public EntryIterator() {
+			position = descending ? high - 1 : low;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return descending ? (position >= low) : (position < high);
+		}
+
+		@Override
+		public Map.Entry<K, V> next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			Map.Entry<K, V> entry = entryAt(position);
+			position += descending ? -1 : 1;
+			return entry;
+		}
+
+	}
+
+}
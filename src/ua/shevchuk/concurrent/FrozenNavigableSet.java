@@ -0,0 +1,209 @@
+package ua.shevchuk.concurrent;
+
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.SortedSet;
+
+public class FrozenNavigableSet<E> extends AbstractSet<E> implements NavigableSet<E> {
+
+	private final EytzingerIndex<E> index;
+	private final int low;
+	private final int high;
+	private final boolean descending;
+
+	public FrozenNavigableSet(SortedSet<E> set) {
+		this(new EytzingerIndex<>(set.comparator(), set.toArray()));
+	}
+
+	private FrozenNavigableSet(EytzingerIndex<E> index) {
+		this(index, 0, index.size(), false);
+	}
+
+	FrozenNavigableSet(EytzingerIndex<E> index, int low, int high, boolean descending) {
+		this.index = index;
+		this.low = low;
+		this.high = high;
+		this.descending = descending;
+	}
+
+	@Override
+	public Comparator<? super E> comparator() {
+		return descending ? Collections.reverseOrder(index.comparator()) : index.comparator();
+	}
+
+	@Override
+	public int size() {
+		return high - low;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return (high == low);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public boolean contains(Object item) {
+		int position = index.indexOf((E) item);
+		return (position >= low) && (position < high);
+	}
+
+	@Override
+	public E ceiling(E item) {
+		return at(descending ? floorPosition(item, true) : ceilingPosition(item, true));
+	}
+
+	@Override
+	public E higher(E item) {
+		return at(descending ? floorPosition(item, false) : ceilingPosition(item, false));
+	}
+
+	@Override
+	public E floor(E item) {
+		return at(descending ? ceilingPosition(item, true) : floorPosition(item, true));
+	}
+
+	@Override
+	public E lower(E item) {
+		return at(descending ? ceilingPosition(item, false) : floorPosition(item, false));
+	}
+
+	@Override
+	public E first() {
+		if (isEmpty()) {
+			throw new NoSuchElementException();
+		}
+		return index.itemAt(descending ? high - 1 : low);
+	}
+
+	@Override
+	public E last() {
+		if (isEmpty()) {
+			throw new NoSuchElementException();
+		}
+		return index.itemAt(descending ? low : high - 1);
+	}
+
+	@Override
+	public E pollFirst() {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public E pollLast() {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public Iterator<E> iterator() {
+		return new IndexIterator(descending);
+	}
+
+	@Override
+	public Iterator<E> descendingIterator() {
+		return new IndexIterator(!descending);
+	}
+
+	@Override
+	public NavigableSet<E> descendingSet() {
+		return new FrozenNavigableSet<>(index, low, high, !descending);
+	}
+
+	@Override
+	public NavigableSet<E> subSet(E fromItem, boolean fromInclusive, E toItem, boolean toInclusive) {
+		if ((fromItem == null) || (toItem == null)) {
+			throw new NullPointerException();
+		}
+		int compare = index.compare(fromItem, toItem);
+		if (descending ? (compare < 0) : (compare > 0)) {
+			throw new IllegalArgumentException();
+		}
+		return descending ? range(toItem, toInclusive, fromItem, fromInclusive)
+				: range(fromItem, fromInclusive, toItem, toInclusive);
+	}
+
+	@Override
+	public NavigableSet<E> headSet(E toItem, boolean toInclusive) {
+		if (toItem == null) {
+			throw new NullPointerException();
+		}
+		return descending ? range(toItem, toInclusive, null, false) : range(null, false, toItem, toInclusive);
+	}
+
+	@Override
+	public NavigableSet<E> tailSet(E fromItem, boolean fromInclusive) {
+		if (fromItem == null) {
+			throw new NullPointerException();
+		}
+		return descending ? range(null, false, fromItem, fromInclusive) : range(fromItem, fromInclusive, null, false);
+	}
+
+	@Override
+	public SortedSet<E> subSet(E fromItem, E toItem) {
+		return subSet(fromItem, true, toItem, false);
+	}
+
+	@Override
+	public SortedSet<E> headSet(E toItem) {
+		return headSet(toItem, false);
+	}
+
+	@Override
+	public SortedSet<E> tailSet(E fromItem) {
+		return tailSet(fromItem, true);
+	}
+
+	private FrozenNavigableSet<E> range(E leastItem, boolean leastInclusive, E greatestItem, boolean greatestInclusive) {
+		int rangeLow = (leastItem == null) ? low : index.ceilingIndex(leastItem, leastInclusive);
+		int rangeHigh = (greatestItem == null) ? high : index.floorIndex(greatestItem, greatestInclusive) + 1;
+		if ((leastItem != null) && ((rangeLow < low) || (index.floorIndex(leastItem, leastInclusive) >= high))
+				|| (greatestItem != null) && ((rangeHigh > high) || (index.ceilingIndex(greatestItem, greatestInclusive) < low))) {
+			throw new IllegalArgumentException();
+		}
+		return new FrozenNavigableSet<>(index, rangeLow, Math.max(rangeLow, rangeHigh), descending);
+	}
+
+	private int ceilingPosition(E item, boolean inclusive) {
+		return Math.max(low, index.ceilingIndex(item, inclusive));
+	}
+
+	private int floorPosition(E item, boolean inclusive) {
+		return Math.min(high - 1, index.floorIndex(item, inclusive));
+	}
+
+	private E at(int position) {
+		return ((position >= low) && (position < high)) ? index.itemAt(position) : null;
+	}
+
+	private class IndexIterator implements Iterator<E> {
+
+		private final boolean descending;
+		private int position;
+
+		public IndexIterator(boolean descending) {
+			this.descending = descending;
+			position = descending ? high - 1 : low;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return descending ? (position >= low) : (position < high);
+		}
+
+		@Override
+		public E next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			E item = index.itemAt(position);
+			position += descending ? -1 : 1;
+			return item;
+		}
+
+	}
+
+}
@@ -0,0 +1,91 @@
+package ua.shevchuk.concurrent;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class MembershipFilter {
+
+	private static final int COUNTER_BITS = 4;
+	private static final int COUNTERS_PER_WORD = Long.SIZE / COUNTER_BITS;
+	private static final long COUNTER_MASK = (1L << COUNTER_BITS) - 1;
+	private static final long MAXIMUM_WORD_COUNT = (1L << Integer.SIZE - 1) / COUNTERS_PER_WORD;
+
+	private final AtomicLongArray words;
+	private final long counterCount;
+	private final int hashCount;
+
+	public MembershipFilter(long expectedSize, double falsePositiveRate) {
+		if ((expectedSize <= 0) || (falsePositiveRate <= 0) || (falsePositiveRate >= 1)) {
+			throw new IllegalArgumentException();
+		}
+		double counters = Math.ceil(-expectedSize * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+		long wordCount = Math.max((long) Math.ceil(counters / COUNTERS_PER_WORD), 1);
+		if (wordCount > MAXIMUM_WORD_COUNT) {
+			throw new IllegalArgumentException();
+		}
+		words = new AtomicLongArray((int) wordCount);
+		counterCount = wordCount * COUNTERS_PER_WORD;
+		hashCount = Math.max((int) Math.round((double) counterCount / expectedSize * Math.log(2)), 1);
+	}
+
+	public boolean mightContain(int hash) {
+		long mixedHash = mix(hash);
+		int hash1 = (int) mixedHash;
+		int hash2 = (int) (mixedHash >>> 32) | 1;
+		for (int function = 0; function < hashCount; function++) {
+			long counter = counterOf(hash1 + function * hash2);
+			if (((words.get((int) (counter / COUNTERS_PER_WORD)) >>> shiftOf(counter)) & COUNTER_MASK) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public static int naturalHash(Object item) {
+		return (item instanceof BigDecimal) ? ((BigDecimal) item).stripTrailingZeros().hashCode() : item.hashCode();
+	}
+
+	void add(int hash) {
+		change(hash, 1);
+	}
+
+	void remove(int hash) {
+		change(hash, -1);
+	}
+
+	private void change(int hash, int delta) {
+		long mixedHash = mix(hash);
+		int hash1 = (int) mixedHash;
+		int hash2 = (int) (mixedHash >>> 32) | 1;
+		for (int function = 0; function < hashCount; function++) {
+			long counter = counterOf(hash1 + function * hash2);
+			int word = (int) (counter / COUNTERS_PER_WORD);
+			int shift = shiftOf(counter);
+			while (true) {
+				long value = words.get(word);
+				long count = (value >>> shift) & COUNTER_MASK;
+				if ((count == COUNTER_MASK) || ((count == 0) && (delta < 0))) {
+					break;
+				}
+				if (words.compareAndSet(word, value, value + ((long) delta << shift))) {
+					break;
+				}
+			}
+		}
+	}
+
+	private long counterOf(int hash) {
+		return ((hash & 0xffffffffL) * counterCount) >>> 32;
+	}
+
+	private static int shiftOf(long counter) {
+		return (int) (counter % COUNTERS_PER_WORD) * COUNTER_BITS;
+	}
+
+	private static long mix(int hash) {
+		long mixedHash = hash * 0x9e3779b97f4a7c15L;
+		mixedHash ^= mixedHash >>> 31;
+		return mixedHash * 0xbf58476d1ce4e5b9L;
+	}
+
+}
@@ -0,0 +1,82 @@
+package ua.shevchuk.concurrent;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+public class RangeAggregator<T, A> {
+
+	private final A identity;
+	private final Function<? super T, ? extends A> mapper;
+	private final BinaryOperator<A> combiner;
+
+	public RangeAggregator(A identity, Function<? super T, ? extends A> mapper, BinaryOperator<A> combiner) {
+		if ((mapper == null) || (combiner == null)) {
+			throw new NullPointerException();
+		}
+		this.identity = identity;
+		this.mapper = mapper;
+		this.combiner = combiner;
+	}
+
+	public static <T> RangeAggregator<T, Long> counting() {
+		return new RangeAggregator<>(0L, item -> 1L, Long::sum);
+	}
+
+	public static <T> RangeAggregator<T, Long> summingLong(ToLongFunction<? super T> mapper) {
+		return new RangeAggregator<>(0L, item -> mapper.applyAsLong(item), Long::sum);
+	}
+
+	public static <T> RangeAggregator<T, T> minimum(Comparator<? super T> comparator) {
+		return new RangeAggregator<>(null, item -> item, (item1, item2) -> (item1 == null) ? item2 
+				: (item2 == null) ? item1 : (comparator.compare(item1, item2) <= 0) ? item1 : item2);
+	}
+
+	public static <T> RangeAggregator<T, T> maximum(Comparator<? super T> comparator) {
+		return new RangeAggregator<>(null, item -> item, (item1, item2) -> (item1 == null) ? item2 
+				: (item2 == null) ? item1 : (comparator.compare(item1, item2) >= 0) ? item1 : item2);
+	}
+
+	@SuppressWarnings("unchecked")
+	public A aggregate(Collection<? extends T> collection) {
+		if ((collection instanceof ConcurrentSkipListSet) 
+				&& (((ConcurrentSkipListSet<?>) collection).aggregator() == this)) {
+			return (A) ((ConcurrentSkipListSet<?>) collection).aggregate();
+		}
+		A summary = identity;
+		for (T item : collection) {
+			summary = combine(summary, lift(item));
+		}
+		return summary;
+	}
+
+	@SuppressWarnings("unchecked")
+	public A aggregate(Map<?, ? extends T> map) {
+		if ((map instanceof ConcurrentSkipListMap) && (((ConcurrentSkipListMap<?, ?>) map).aggregator() == this)) {
+			return (A) ((ConcurrentSkipListMap<?, ?>) map).aggregate();
+		}
+		return aggregate(map.values());
+	}
+
+	A identity() {
+		return identity;
+	}
+
+	A lift(T item) {
+		return mapper.apply(item);
+	}
+
+	A combine(A summary1, A summary2) {
+		return combiner.apply(summary1, summary2);
+	}
+
+	<K, V extends T> RangeAggregator<Map.Entry<K, V>, A> onValues(Predicate<? super Map.Entry<K, V>> present) {
+		return new RangeAggregator<>(identity, entry -> present.test(entry) ? mapper.apply(entry.getValue()) : identity
+				, combiner);
+	}
+
+}
@@ -0,0 +1,173 @@
+package ua.shevchuk.concurrent;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+
+public class RangePublisher<E> implements Flow.Publisher<E> {
+
+	private final UnaryOperator<E> successor;
+	private final Executor executor;
+	private final ScheduledExecutorService scheduler;
+	private final long followDelay;
+
+	private RangePublisher(UnaryOperator<E> successor, Executor executor
+			, ScheduledExecutorService scheduler, long followDelay) {
+		this.successor = successor;
+		this.executor = executor;
+		this.scheduler = scheduler;
+		this.followDelay = followDelay;
+	}
+
+	public static <E> RangePublisher<E> of(NavigableSet<E> set) {
+		return of(set, ForkJoinPool.commonPool());
+	}
+
+	public static <E> RangePublisher<E> of(NavigableSet<E> set, Executor executor) {
+		if ((set == null) || (executor == null)) {
+			throw new NullPointerException();
+		}
+		return new RangePublisher<>(item -> (item == null) ? first(set) : set.higher(item), executor, null, 0);
+	}
+
+	public static <K, V> RangePublisher<Map.Entry<K, V>> of(NavigableMap<K, V> map) {
+		return of(map, ForkJoinPool.commonPool());
+	}
+
+	public static <K, V> RangePublisher<Map.Entry<K, V>> of(NavigableMap<K, V> map, Executor executor) {
+		if ((map == null) || (executor == null)) {
+			throw new NullPointerException();
+		}
+		return new RangePublisher<>(entry -> (entry == null) ? map.firstEntry() : map.higherEntry(entry.getKey())
+				, executor, null, 0);
+	}
+
+	public RangePublisher<E> following(ScheduledExecutorService scheduler, long delay, TimeUnit unit) {
+		if ((scheduler == null) || (unit == null)) {
+			throw new NullPointerException();
+		}
+		if (delay <= 0) {
+			throw new IllegalArgumentException();
+		}
+		return new RangePublisher<>(successor, executor, scheduler, unit.toNanos(delay));
+	}
+
+	@Override
+	public void subscribe(Flow.Subscriber<? super E> subscriber) {
+		if (subscriber == null) {
+			throw new NullPointerException();
+		}
+		subscriber.onSubscribe(new RangeSubscription(subscriber));
+	}
+
+	private static <E> E first(NavigableSet<E> set) {
+		try {
+			return set.first();
+		} catch (NoSuchElementException e) {
+			return null;
+		}
+	}
+
+	private class RangeSubscription implements Flow.Subscription, Runnable {
+
+		private final Flow.Subscriber<? super E> subscriber;
+		private final AtomicLong demand;
+		private final AtomicInteger work;
+		private volatile boolean done;
+		private volatile Throwable error;
+		private E last;
+
+		public RangeSubscription(Flow.Subscriber<? super E> subscriber) {
+			this.subscriber = subscriber;
+			demand = new AtomicLong();
+			work = new AtomicInteger();
+		}
+
+		@Override
+		public void request(long n) {
+			if (n <= 0) {
+				error = new IllegalArgumentException();
+				signal();
+				return;
+			}
+			demand.getAndUpdate(requested -> (requested + n < 0) ? Long.MAX_VALUE : requested + n);
+			signal();
+		}
+
+		@Override
+		public void cancel() {
+			done = true;
+		}
+
+		@Override
+		public void run() {
+			int missed = work.get();
+			while (true) {
+				long requested = demand.get();
+				long emitted = 0;
+				boolean exhausted = false;
+				try {
+					if (!done && (error != null)) {
+						done = true;
+						subscriber.onError(error);
+					}
+					while (!done && (emitted != requested)) {
+						E item = successor.apply(last);
+						if (item == null) {
+							exhausted = true;
+							if (scheduler == null) {
+								done = true;
+								subscriber.onComplete();
+							}
+							break;
+						}
+						last = item;
+						subscriber.onNext(item);
+						emitted++;
+					}
+				} catch (RuntimeException e) {
+					if (!done) {
+						done = true;
+						subscriber.onError(e);
+					}
+				}
+				if (done) {
+					return;
+				}
+				if ((emitted != 0) && (requested != Long.MAX_VALUE)) {
+					demand.addAndGet(-emitted);
+				}
+				if (exhausted) {
+					try {
+						scheduler.schedule(() -> executor.execute(this), followDelay, TimeUnit.NANOSECONDS);
+					} catch (RejectedExecutionException e) {
+						done = true;
+						subscriber.onError(e);
+					}
+					return;
+				}
+				missed = work.addAndGet(-missed);
+				if (missed == 0) {
+					return;
+				}
+			}
+		}
+
+		private void signal() {
+			if (!done && (work.getAndIncrement() == 0)) {
+				executor.execute(this);
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,166 @@
+package ua.shevchuk.concurrent;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+public class ReplicationFollower<K, V> implements Runnable, Closeable {
+
+	private final ConcurrentSkipListMap<K, V> map;
+	private final Codec<K> keyCodec;
+	private final Codec<V> valueCodec;
+	private final ReplicationTransport transport;
+
+	private K snapshotBound;
+	private boolean snapshotting;
+	private volatile boolean closed;
+	private volatile boolean synced;
+	private volatile long sequence;
+
+	public ReplicationFollower(ConcurrentSkipListMap<K, V> map, Codec<K> keyCodec, Codec<V> valueCodec
+			, ReplicationTransport transport) {
+		if ((map == null) || (keyCodec == null) || (valueCodec == null) || (transport == null)) {
+			throw new NullPointerException();
+		}
+		this.map = map;
+		this.keyCodec = keyCodec;
+		this.valueCodec = valueCodec;
+		this.transport = transport;
+	}
+
+	public ConcurrentSkipListMap<K, V> map() {
+		return map;
+	}
+
+	public boolean isSynchronized() {
+		return synced;
+	}
+
+	public long sequence() {
+		return sequence;
+	}
+
+	@Override
+	public void run() {
+		try {
+			ByteBuffer frame;
+			while (!closed && ((frame = transport.receive()) != null)) {
+				apply(frame);
+			}
+		} catch (IOException e) {
+			if (!closed) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		closed = true;
+		transport.close();
+	}
+
+	private void apply(ByteBuffer frame) {
+		byte type = frame.get();
+		int count = frame.getInt();
+		switch (type) {
+		case ReplicationPrimary.SNAPSHOT_BEGIN:
+			snapshotting = true;
+			snapshotBound = null;
+			synced = false;
+			break;
+		case ReplicationPrimary.SNAPSHOT_ENTRIES:
+			if (!snapshotting) {
+				throw new IllegalStateException();
+			}
+			applySnapshot(frame, count);
+			break;
+		case ReplicationPrimary.SNAPSHOT_END:
+			if (!snapshotting) {
+				throw new IllegalStateException();
+			}
+			NavigableSet<K> staleKeys = (snapshotBound == null) ? map.navigableKeySet()
+					: map.navigableKeySet().tailSet(snapshotBound, false);
+			map.apply(new TreeMap<>(map.comparator()), new ArrayList<>(staleKeys));
+			snapshotting = false;
+			sequence = frame.getLong();
+			synced = true;
+			break;
+		case ReplicationPrimary.MUTATIONS:
+			if (snapshotting) {
+				throw new IllegalStateException();
+			}
+			long position = frame.getLong();
+			applyMutations(frame, count);
+			sequence = position;
+			break;
+		default:
+			throw new IllegalStateException("Unknown frame type " + type);
+		}
+	}
+
+	private void applySnapshot(ByteBuffer frame, int count) {
+		TreeMap<K, V> puts = new TreeMap<>(map.comparator());
+		for (int index = 0; index < count; index++) {
+			K key = key(frame);
+			puts.put(key, value(frame));
+		}
+		if (puts.isEmpty()) {
+			return;
+		}
+		K lastKey = puts.lastKey();
+		NavigableSet<K> keys = (snapshotBound == null) ? map.navigableKeySet().headSet(lastKey, true)
+				: map.navigableKeySet().subSet(snapshotBound, false, lastKey, true);
+		List<K> removes = new ArrayList<>();
+		for (Iterator<K> iterator = keys.iterator(); iterator.hasNext();) {
+			K key = iterator.next();
+			if (!puts.containsKey(key)) {
+				removes.add(key);
+			}
+		}
+		map.apply(puts, removes);
+		snapshotBound = lastKey;
+	}
+
+	private void applyMutations(ByteBuffer frame, int count) {
+		TreeMap<K, V> puts = new TreeMap<>(map.comparator());
+		TreeSet<K> removes = new TreeSet<>(map.comparator());
+		for (int index = 0; index < count; index++) {
+			K key = key(frame);
+			V value = value(frame);
+			if (value == null) {
+				puts.remove(key);
+				removes.add(key);
+			} else {
+				removes.remove(key);
+				puts.put(key, value);
+			}
+		}
+		map.apply(puts, removes);
+	}
+
+	private K key(ByteBuffer frame) {
+		int length = frame.getInt();
+		ByteBuffer keyBuffer = (ByteBuffer) frame.slice().limit(length);
+		frame.position(frame.position() + length);
+		return keyCodec.decode(keyBuffer);
+	}
+
+	private V value(ByteBuffer frame) {
+		int length = frame.getInt();
+		if (length == ReplicationPrimary.REMOVED) {
+			return null;
+		}
+		ByteBuffer valueBuffer = (ByteBuffer) frame.slice().limit(length);
+		frame.position(frame.position() + length);
+		return valueCodec.decode(valueBuffer);
+	}
+
+}
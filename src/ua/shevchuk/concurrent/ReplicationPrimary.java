@@ -0,0 +1,171 @@
+package ua.shevchuk.concurrent;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+public class ReplicationPrimary<K, V> implements Runnable, Closeable {
+
+	static final byte SNAPSHOT_BEGIN = 0;
+	static final byte SNAPSHOT_ENTRIES = 1;
+	static final byte SNAPSHOT_END = 2;
+	static final byte MUTATIONS = 3;
+	static final int REMOVED = -1;
+
+	private static final int BATCH_SIZE = 1 << 10;
+	private static final int BUFFER_SIZE = 1 << 16;
+	private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	private final ConcurrentSkipListMap<K, V> map;
+	private final Codec<K> keyCodec;
+	private final Codec<V> valueCodec;
+	private final ReplicationTransport transport;
+
+	private ByteBuffer buffer;
+	private int count;
+	private volatile boolean closed;
+	private volatile long sequence;
+
+	public ReplicationPrimary(ConcurrentSkipListMap<K, V> map, Codec<K> keyCodec, Codec<V> valueCodec
+			, ReplicationTransport transport) {
+		if ((map == null) || (keyCodec == null) || (valueCodec == null) || (transport == null)) {
+			throw new NullPointerException();
+		}
+		this.map = map;
+		this.keyCodec = keyCodec;
+		this.valueCodec = valueCodec;
+		this.transport = transport;
+		buffer = ByteBuffer.allocate(BUFFER_SIZE);
+	}
+
+	public long sequence() {
+		return sequence;
+	}
+
+	@Override
+	public void run() {
+		try {
+			stream();
+		} catch (IOException e) {
+			if (!closed) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		closed = true;
+		transport.close();
+	}
+
+	private void stream() throws IOException {
+		ChangeFeed<K, V> feed = map.changeFeed();
+		ChangeFeed<K, V>.Cursor cursor = null;
+		while (!closed) {
+			if ((cursor == null) || (cursor.lost() > 0)) {
+				cursor = feed.cursor();
+				feed.settle(cursor.position());
+				snapshot(cursor);
+				continue;
+			}
+			begin(MUTATIONS);
+			buffer.putLong(0);
+			int drained = cursor.drain(event -> record(event.getKey(), event.getNewValue()), BATCH_SIZE);
+			if (cursor.lost() > 0) {
+				continue;
+			}
+			if (drained == 0) {
+				LockSupport.parkNanos(IDLE_NANOS);
+				continue;
+			}
+			buffer.putLong(1 + Integer.BYTES, cursor.position());
+			send();
+			sequence = cursor.position();
+		}
+	}
+
+	private void snapshot(ChangeFeed<K, V>.Cursor cursor) throws IOException {
+		long position = cursor.position();
+		TreeMap<K, V> pending = new TreeMap<>(map.comparator());
+		Consumer<ChangeFeed.Event<K, V>> buffering = event -> pending.put(event.getKey(), event.getNewValue());
+		begin(SNAPSHOT_BEGIN);
+		send();
+		begin(SNAPSHOT_ENTRIES);
+		for (Map.Entry<K, V> entry : map.entrySet()) {
+			record(entry.getKey(), entry.getValue());
+			if ((count == BATCH_SIZE) || (buffer.position() >= BUFFER_SIZE)) {
+				send();
+				cursor.drain(buffering, Integer.MAX_VALUE);
+				if (cursor.lost() > 0) {
+					return;
+				}
+				begin(SNAPSHOT_ENTRIES);
+			}
+		}
+		if (count > 0) {
+			send();
+		}
+		begin(SNAPSHOT_END);
+		buffer.putLong(position);
+		send();
+		sequence = position;
+		cursor.drain(buffering, Integer.MAX_VALUE);
+		if (cursor.lost() > 0) {
+			return;
+		}
+		begin(MUTATIONS);
+		buffer.putLong(position);
+		for (Map.Entry<K, V> entry : pending.entrySet()) {
+			record(entry.getKey(), entry.getValue());
+			if ((count == BATCH_SIZE) || (buffer.position() >= BUFFER_SIZE)) {
+				send();
+				begin(MUTATIONS);
+				buffer.putLong(position);
+			}
+		}
+		buffer.putLong(1 + Integer.BYTES, cursor.position());
+		send();
+		sequence = cursor.position();
+	}
+
+	private void begin(byte type) {
+		buffer.clear();
+		buffer.put(type).putInt(0);
+		count = 0;
+	}
+
+	private void record(K key, V value) {
+		byte[] keyBytes = keyCodec.encode(key);
+		byte[] valueBytes = (value == null) ? null : valueCodec.encode(value);
+		int length = 2 * Integer.BYTES + keyBytes.length + ((valueBytes == null) ? 0 : valueBytes.length);
+		if (buffer.remaining() < length) {
+			ByteBuffer grownBuffer = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + length));
+			buffer.flip();
+			buffer = grownBuffer.put(buffer);
+		}
+		buffer.putInt(keyBytes.length).put(keyBytes);
+		if (valueBytes == null) {
+			buffer.putInt(REMOVED);
+		} else {
+			buffer.putInt(valueBytes.length).put(valueBytes);
+		}
+		count++;
+	}
+
+	private void send() throws IOException {
+		buffer.putInt(1, count);
+		buffer.flip();
+		transport.send(buffer);
+		if (buffer.capacity() > BUFFER_SIZE) {
+			buffer = ByteBuffer.allocate(BUFFER_SIZE);
+		}
+	}
+
+}
@@ -0,0 +1,13 @@
+package ua.shevchuk.concurrent;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+public interface ReplicationTransport extends Closeable {
+
+	void send(ByteBuffer frame) throws IOException;
+
+	ByteBuffer receive() throws IOException;
+
+}
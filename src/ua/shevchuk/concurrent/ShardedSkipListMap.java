@@ -0,0 +1,548 @@
+package ua.shevchuk.concurrent;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.function.Function;
+
+public class ShardedSkipListMap<K, V> extends AbstractMap<K, V> implements ConcurrentNavigableMap<K, V> {
+
+	private final Comparator<? super K> comparator;
+	private final Object[] splitKeys;
+	private final ConcurrentNavigableMap<K, V>[] shards;
+	private final int low;
+	private final int high;
+	private final boolean descending;
+
+	public ShardedSkipListMap(Collection<? extends K> splitKeys) {
+		this(null, splitKeys);
+	}
+
+	@SuppressWarnings("unchecked")
+	public ShardedSkipListMap(Comparator<? super K> comparator, Collection<? extends K> splitKeys) {
+		this.comparator = comparator;
+		this.splitKeys = splitKeys.toArray();
+		for (int position = 0; position < this.splitKeys.length; position++) {
+			if (this.splitKeys[position] == null) {
+				throw new NullPointerException();
+			}
+			if ((position > 0) && (compare((K) this.splitKeys[position - 1], (K) this.splitKeys[position]) >= 0)) {
+				throw new IllegalArgumentException();
+			}
+		}
+		shards = new ConcurrentNavigableMap[this.splitKeys.length + 1];
+		for (int shard = 0; shard < shards.length; shard++) {
+			shards[shard] = new ConcurrentSkipListMap<>(comparator);
+		}
+		low = 0;
+		high = shards.length - 1;
+		descending = false;
+	}
+
+	private ShardedSkipListMap(ShardedSkipListMap<K, V> map, ConcurrentNavigableMap<K, V>[] shards
+			, int low, int high, boolean descending) {
+		comparator = map.comparator;
+		splitKeys = map.splitKeys;
+		this.shards = shards;
+		this.low = low;
+		this.high = high;
+		this.descending = descending;
+	}
+
+	public static <K, V> ShardedSkipListMap<K, V> ofSamples(Comparator<? super K> comparator
+			, Collection<? extends K> samples, int shardCount) {
+		if (shardCount <= 0) {
+			throw new IllegalArgumentException();
+		}
+		List<K> sortedSamples = new ArrayList<>(samples);
+		Collections.sort(sortedSamples, comparator);
+		List<K> splitKeys = new ArrayList<>();
+		for (int shard = 1; shard < shardCount; shard++) {
+			int position = (int) ((long) shard * sortedSamples.size() / shardCount);
+			if (position < sortedSamples.size()) {
+				K splitKey = sortedSamples.get(position);
+				if (splitKeys.isEmpty() || (compare(comparator, splitKeys.get(splitKeys.size() - 1), splitKey) < 0)) {
+					splitKeys.add(splitKey);
+				}
+			}
+		}
+		return new ShardedSkipListMap<>(comparator, splitKeys);
+	}
+
+	@Override
+	public Comparator<? super K> comparator() {
+		return descending ? Collections.reverseOrder(comparator) : comparator;
+	}
+
+	@Override
+	public V get(Object key) {
+		return shardOf(key).get(key);
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return shardOf(key).containsKey(key);
+	}
+
+	@Override
+	public V put(K key, V value) {
+		return shardOf(key).put(key, value);
+	}
+
+	@Override
+	public V putIfAbsent(K key, V value) {
+		return shardOf(key).putIfAbsent(key, value);
+	}
+
+	@Override
+	public V replace(K key, V value) {
+		return shardOf(key).replace(key, value);
+	}
+
+	@Override
+	public boolean replace(K key, V oldValue, V newValue) {
+		return shardOf(key).replace(key, oldValue, newValue);
+	}
+
+	@Override
+	public V remove(Object key) {
+		return shardOf(key).remove(key);
+	}
+
+	@Override
+	public boolean remove(Object key, Object value) {
+		return shardOf(key).remove(key, value);
+	}
+
+	@Override
+	public void clear() {
+		for (int shard = low; shard <= high; shard++) {
+			shards[shard].clear();
+		}
+	}
+
+	@Override
+	public boolean isEmpty() {
+		for (int shard = low; shard <= high; shard++) {
+			if (!shards[shard].isEmpty()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public int size() {
+		long size = 0;
+		for (int shard = low; shard <= high; shard++) {
+			size += shards[shard].size();
+		}
+		return (int) Math.min(size, Integer.MAX_VALUE);
+	}
+
+	@Override
+	public Map.Entry<K, V> ceilingEntry(K key) {
+		return find(key, true, true);
+	}
+
+	@Override
+	public K ceilingKey(K key) {
+		return keyOf(ceilingEntry(key));
+	}
+
+	@Override
+	public Map.Entry<K, V> higherEntry(K key) {
+		return find(key, false, true);
+	}
+
+	@Override
+	public K higherKey(K key) {
+		return keyOf(higherEntry(key));
+	}
+
+	@Override
+	public Map.Entry<K, V> floorEntry(K key) {
+		return find(key, true, false);
+	}
+
+	@Override
+	public K floorKey(K key) {
+		return keyOf(floorEntry(key));
+	}
+
+	@Override
+	public Map.Entry<K, V> lowerEntry(K key) {
+		return find(key, false, false);
+	}
+
+	@Override
+	public K lowerKey(K key) {
+		return keyOf(lowerEntry(key));
+	}
+
+	@Override
+	public Map.Entry<K, V> firstEntry() {
+		return end(true, false);
+	}
+
+	@Override
+	public K firstKey() {
+		Map.Entry<K, V> entry = firstEntry();
+		if (entry == null) {
+			throw new NoSuchElementException();
+		}
+		return entry.getKey();
+	}
+
+	@Override
+	public Map.Entry<K, V> lastEntry() {
+		return end(false, false);
+	}
+
+	@Override
+	public K lastKey() {
+		Map.Entry<K, V> entry = lastEntry();
+		if (entry == null) {
+			throw new NoSuchElementException();
+		}
+		return entry.getKey();
+	}
+
+	@Override
+	public Map.Entry<K, V> pollFirstEntry() {
+		return end(true, true);
+	}
+
+	@Override
+	public Map.Entry<K, V> pollLastEntry() {
+		return end(false, true);
+	}
+
+	@Override
+	public Set<Map.Entry<K, V>> entrySet() {
+		return new AbstractConcurrentSet<Map.Entry<K, V>>() {
+
+			@SuppressWarnings("unchecked")
+			@Override
+			public boolean remove(Object item) {
+				if (!(item instanceof Map.Entry)) {
+					return false;
+				}
+				Map.Entry<K, V> entry = (Map.Entry<K, V>) item;
+				return ShardedSkipListMap.this.remove(entry.getKey(), entry.getValue());
+			}
+
+			@SuppressWarnings("unchecked")
+			@Override
+			public boolean contains(Object item) {
+				if (!(item instanceof Map.Entry)) {
+					return false;
+				}
+				Map.Entry<K, V> entry = (Map.Entry<K, V>) item;
+				V value = get(entry.getKey());
+				return (value != null) && value.equals(entry.getValue());
+			}
+
+			@Override
+			public boolean isEmpty() {
+				return ShardedSkipListMap.this.isEmpty();
+			}
+
+			@Override
+			public int size() {
+				return ShardedSkipListMap.this.size();
+			}
+
+			@Override
+			public ConcurrentIterator<Map.Entry<K, V>> iterator() {
+				return new ShardIterator<>(shard -> shard.entrySet());
+			}
+
+		};
+	}
+
+	@Override
+	public NavigableSet<K> keySet() {
+		return new KeySet();
+	}
+
+	@Override
+	public NavigableSet<K> navigableKeySet() {
+		return keySet();
+	}
+
+	@Override
+	public NavigableSet<K> descendingKeySet() {
+		return descendingMap().navigableKeySet();
+	}
+
+	@Override
+	public ShardedSkipListMap<K, V> descendingMap() {
+		ConcurrentNavigableMap<K, V>[] descendingShards = shards.clone();
+		for (int shard = low; shard <= high; shard++) {
+			descendingShards[shard] = shards[shard].descendingMap();
+		}
+		return new ShardedSkipListMap<>(this, descendingShards, low, high, !descending);
+	}
+
+	@Override
+	public ShardedSkipListMap<K, V> subMap(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+		if ((fromKey == null) || (toKey == null)) {
+			throw new NullPointerException();
+		}
+		int compare = compare(fromKey, toKey);
+		if (descending ? (compare < 0) : (compare > 0)) {
+			throw new IllegalArgumentException();
+		}
+		return range(fromKey, fromInclusive, toKey, toInclusive);
+	}
+
+	@Override
+	public ShardedSkipListMap<K, V> headMap(K toKey, boolean toInclusive) {
+		if (toKey == null) {
+			throw new NullPointerException();
+		}
+		return range(null, false, toKey, toInclusive);
+	}
+
+	@Override
+	public ShardedSkipListMap<K, V> tailMap(K fromKey, boolean fromInclusive) {
+		if (fromKey == null) {
+			throw new NullPointerException();
+		}
+		return range(fromKey, fromInclusive, null, false);
+	}
+
+	@Override
+	public ShardedSkipListMap<K, V> subMap(K fromKey, K toKey) {
+		return subMap(fromKey, true, toKey, false);
+	}
+
+	@Override
+	public ShardedSkipListMap<K, V> headMap(K toKey) {
+		return headMap(toKey, false);
+	}
+
+	@Override
+	public ShardedSkipListMap<K, V> tailMap(K fromKey) {
+		return tailMap(fromKey, true);
+	}
+
+	private ShardedSkipListMap<K, V> range(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+		int fromShard = (fromKey == null) ? (descending ? high : low) : indexOf(fromKey);
+		int toShard = (toKey == null) ? (descending ? low : high) : indexOf(toKey);
+		ConcurrentNavigableMap<K, V>[] rangeShards = shards.clone();
+		if (fromKey != null) {
+			rangeShards[fromShard] = rangeShards[fromShard].tailMap(fromKey, fromInclusive);
+		}
+		if (toKey != null) {
+			rangeShards[toShard] = rangeShards[toShard].headMap(toKey, toInclusive);
+		}
+		return descending ? new ShardedSkipListMap<>(this, rangeShards, toShard, Math.max(toShard, fromShard), true)
+				: new ShardedSkipListMap<>(this, rangeShards, fromShard, Math.max(fromShard, toShard), false);
+	}
+
+	private Map.Entry<K, V> find(K key, boolean inclusive, boolean forward) {
+		int step = (forward != descending) ? 1 : -1;
+		int shard = indexOf(key);
+		Map.Entry<K, V> entry = forward ? (inclusive ? shards[shard].ceilingEntry(key) : shards[shard].higherEntry(key))
+				: (inclusive ? shards[shard].floorEntry(key) : shards[shard].lowerEntry(key));
+		for (shard += step; (entry == null) && (shard >= low) && (shard <= high); shard += step) {
+			entry = forward ? shards[shard].firstEntry() : shards[shard].lastEntry();
+		}
+		return entry;
+	}
+
+	private Map.Entry<K, V> end(boolean first, boolean poll) {
+		int step = (first != descending) ? 1 : -1;
+		for (int shard = (step > 0) ? low : high; (shard >= low) && (shard <= high); shard += step) {
+			Map.Entry<K, V> entry = first ? (poll ? shards[shard].pollFirstEntry() : shards[shard].firstEntry())
+					: (poll ? shards[shard].pollLastEntry() : shards[shard].lastEntry());
+			if (entry != null) {
+				return entry;
+			}
+		}
+		return null;
+	}
+
+	private ConcurrentNavigableMap<K, V> shardOf(Object key) {
+		@SuppressWarnings("unchecked")
+		K typedKey = (K) key;
+		return shards[indexOf(typedKey)];
+	}
+
+	@SuppressWarnings("unchecked")
+	private int indexOf(K key) {
+		if (key == null) {
+			throw new NullPointerException();
+		}
+		int lowSplit = 0;
+		int highSplit = splitKeys.length - 1;
+		while (lowSplit <= highSplit) {
+			int middle = (lowSplit + highSplit) >>> 1;
+			if (compare((K) splitKeys[middle], key) <= 0) {
+				lowSplit = middle + 1;
+			} else {
+				highSplit = middle - 1;
+			}
+		}
+		return Math.min(Math.max(lowSplit, low), high);
+	}
+
+	private int compare(K key1, K key2) {
+		return compare(comparator, key1, key2);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <K> int compare(Comparator<? super K> comparator, K key1, K key2) {
+		return (comparator == null) ? ((Comparable<? super K>) key1).compareTo(key2) : comparator.compare(key1, key2);
+	}
+
+	private static <K> K keyOf(Map.Entry<K, ?> entry) {
+		return (entry == null) ? null : entry.getKey();
+	}
+
+	private class ShardIterator<T> implements ConcurrentIterator<T> {
+
+		private final Function<ConcurrentNavigableMap<K, V>, Collection<T>> view;
+		private final int step;
+		private int shard;
+		private ConcurrentIterator<T> iterator;
+
+		public ShardIterator(Function<ConcurrentNavigableMap<K, V>, Collection<T>> view) {
+			this.view = view;
+			step = descending ? -1 : 1;
+			shard = descending ? high : low;
+			iterator = (ConcurrentIterator<T>) view.apply(shards[shard]).iterator();
+		}
+
+		@Override
+		public boolean hasNext() {
+			while (!iterator.hasNext()) {
+				int nextShard = shard + step;
+				if ((nextShard < low) || (nextShard > high)) {
+					return false;
+				}
+				shard = nextShard;
+				iterator = (ConcurrentIterator<T>) view.apply(shards[shard]).iterator();
+			}
+			return true;
+		}
+
+		@Override
+		public T next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			return iterator.next();
+		}
+
+		@Override
+		public boolean removeElement() {
+			return iterator.removeElement();
+		}
+
+	}
+
+	private class KeySet extends AbstractConcurrenNavigableSet<K> {
+
+		public KeySet() {
+			super(ShardedSkipListMap.this.comparator());
+		}
+
+		@Override
+		public boolean remove(Object item) {
+			return (ShardedSkipListMap.this.remove(item) != null);
+		}
+
+		@Override
+		public boolean contains(Object item) {
+			return containsKey(item);
+		}
+
+		@Override
+		public K ceiling(K item) {
+			return ceilingKey(item);
+		}
+
+		@Override
+		public K floor(K item) {
+			return floorKey(item);
+		}
+
+		@Override
+		public K higher(K item) {
+			return higherKey(item);
+		}
+
+		@Override
+		public K lower(K item) {
+			return lowerKey(item);
+		}
+
+		@Override
+		public K first() {
+			return firstKey();
+		}
+
+		@Override
+		public K last() {
+			return lastKey();
+		}
+
+		@Override
+		public K pollFirst() {
+			return keyOf(pollFirstEntry());
+		}
+
+		@Override
+		public K pollLast() {
+			return keyOf(pollLastEntry());
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return ShardedSkipListMap.this.isEmpty();
+		}
+
+		@Override
+		public int size() {
+			return ShardedSkipListMap.this.size();
+		}
+
+		@Override
+		public ConcurrentIterator<K> iterator() {
+			return new ShardIterator<>(shard -> shard.navigableKeySet());
+		}
+
+		@Override
+		public NavigableSet<K> descendingSet() {
+			return descendingMap().navigableKeySet();
+		}
+
+		@Override
+		public NavigableSet<K> headSet(K toItem, boolean toInclusive) {
+			return headMap(toItem, toInclusive).navigableKeySet();
+		}
+
+		@Override
+		public NavigableSet<K> subSet(K fromItem, boolean fromInclusive, K toItem, boolean toInclusive) {
+			return subMap(fromItem, fromInclusive, toItem, toInclusive).navigableKeySet();
+		}
+
+		@Override
+		public NavigableSet<K> tailSet(K fromItem, boolean fromInclusive) {
+			return tailMap(fromItem, fromInclusive).navigableKeySet();
+		}
+
+	}
+
+}
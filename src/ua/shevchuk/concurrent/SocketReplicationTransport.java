@@ -0,0 +1,69 @@
+package ua.shevchuk.concurrent;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+
+public class SocketReplicationTransport implements ReplicationTransport {
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private final Socket socket;
+	private final DataInputStream input;
+	private final DataOutputStream output;
+
+	public SocketReplicationTransport(Socket socket) throws IOException {
+		if (socket == null) {
+			throw new NullPointerException();
+		}
+		this.socket = socket;
+		socket.setTcpNoDelay(true);
+		input = new DataInputStream(new BufferedInputStream(socket.getInputStream(), BUFFER_SIZE));
+		output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), BUFFER_SIZE));
+	}
+
+	public static SocketReplicationTransport connect(String host, int port) throws IOException {
+		return new SocketReplicationTransport(new Socket(host, port));
+	}
+
+	@Override
+	public synchronized void send(ByteBuffer frame) throws IOException {
+		output.writeInt(frame.remaining());
+		if (frame.hasArray()) {
+			output.write(frame.array(), frame.arrayOffset() + frame.position(), frame.remaining());
+			frame.position(frame.limit());
+		} else {
+			byte[] bytes = new byte[frame.remaining()];
+			frame.get(bytes);
+			output.write(bytes);
+		}
+		output.flush();
+	}
+
+	@Override
+	public ByteBuffer receive() throws IOException {
+		int length;
+		try {
+			length = input.readInt();
+		} catch (EOFException e) {
+			return null;
+		}
+		if (length < 0) {
+			throw new IOException("Invalid frame length " + length);
+		}
+		byte[] frame = new byte[length];
+		input.readFully(frame);
+		return ByteBuffer.wrap(frame);
+	}
+
+	@Override
+	public void close() throws IOException {
+		socket.close();
+	}
+
+}
@@ -0,0 +1,310 @@
+package ua.shevchuk.concurrent;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+public class SortedTable<K, V> {
+
+	private static final int MAGIC = 0x534b4c54;
+	private static final int BLOCK_SIZE = 1 << 12;
+	private static final int RECORD_HEADER_SIZE = 2 * Integer.BYTES;
+	private static final int FOOTER_SIZE = 2 * Long.BYTES + Integer.BYTES;
+	private static final byte[] EMPTY = new byte[0];
+
+	private final Comparator<? super K> comparator;
+	private final Codec<K> keyCodec;
+	private final Codec<V> valueCodec;
+	private final ByteBuffer buffer;
+	private final int[] blocks;
+	private final int indexOffset;
+	private final long size;
+
+	public SortedTable(Path path, Comparator<? super K> comparator, Codec<K> keyCodec) throws IOException {
+		this(path, comparator, keyCodec, null);
+	}
+
+	public SortedTable(Path path, Comparator<? super K> comparator, Codec<K> keyCodec, Codec<V> valueCodec)
+			throws IOException {
+		if ((path == null) || (keyCodec == null)) {
+			throw new NullPointerException();
+		}
+		this.comparator = comparator;
+		this.keyCodec = keyCodec;
+		this.valueCodec = valueCodec;
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			if ((channel.size() < FOOTER_SIZE) || (channel.size() > Integer.MAX_VALUE)) {
+				throw new IllegalArgumentException();
+			}
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		int footerOffset = buffer.capacity() - FOOTER_SIZE;
+		long offset = buffer.getLong(footerOffset);
+		size = buffer.getLong(footerOffset + Long.BYTES);
+		if ((buffer.getInt(footerOffset + 2 * Long.BYTES) != MAGIC) || (offset < 0) || (offset > footerOffset)
+				|| ((footerOffset - offset) % Integer.BYTES != 0)) {
+			throw new IllegalArgumentException();
+		}
+		indexOffset = (int) offset;
+		blocks = new int[(footerOffset - indexOffset) / Integer.BYTES];
+		for (int block = 0; block < blocks.length; block++) {
+			blocks[block] = buffer.getInt(indexOffset + block * Integer.BYTES);
+		}
+	}
+
+	public static <K, V> void write(Path path, ConcurrentSkipListMap<K, V> map, Codec<K> keyCodec, Codec<V> valueCodec)
+			throws IOException {
+		if ((path == null) || (map == null) || (keyCodec == null) || (valueCodec == null)) {
+			throw new NullPointerException();
+		}
+		write(path, map.entrySet().iterator(), keyCodec, valueCodec);
+	}
+
+	public static <E> void write(Path path, ConcurrentSkipListSet<E> set, Codec<E> codec) throws IOException {
+		if ((path == null) || (set == null) || (codec == null)) {
+			throw new NullPointerException();
+		}
+		Iterator<E> iterator = set.iterator();
+		write(path, new Iterator<Map.Entry<E, Object>>() {
+
+			@Override
+			public boolean hasNext() {
+				return iterator.hasNext();
+			}
+
+			@Override
+			public Map.Entry<E, Object> next() {
+				return new AbstractMap.SimpleImmutableEntry<>(iterator.next(), null);
+			}
+
+		}, codec, null);
+	}
+
+	private static <K, V> void write(Path path, Iterator<? extends Map.Entry<K, V>> iterator
+			, Codec<K> keyCodec, Codec<V> valueCodec) throws IOException {
+		Path writtenPath = path.resolveSibling(path.getFileName() + ".tmp");
+		int[] blocks = new int[16];
+		int blockCount = 0;
+		long size = 0;
+		int offset = 0;
+		int blockOffset = -BLOCK_SIZE;
+		try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(writtenPath)))) {
+			while (iterator.hasNext()) {
+				Map.Entry<K, V> entry = iterator.next();
+				byte[] keyBytes = keyCodec.encode(entry.getKey());
+				byte[] valueBytes = (valueCodec == null) ? EMPTY : valueCodec.encode(entry.getValue());
+				if (offset - blockOffset >= BLOCK_SIZE) {
+					if (blockCount == blocks.length) {
+						blocks = Arrays.copyOf(blocks, blockCount * 2);
+					}
+					blocks[blockCount++] = blockOffset = offset;
+				}
+				output.writeInt(keyBytes.length);
+				output.writeInt(valueBytes.length);
+				output.write(keyBytes);
+				output.write(valueBytes);
+				offset = Math.addExact(offset, RECORD_HEADER_SIZE + keyBytes.length + valueBytes.length);
+				size++;
+			}
+			for (int block = 0; block < blockCount; block++) {
+				output.writeInt(blocks[block]);
+			}
+			output.writeLong(offset);
+			output.writeLong(size);
+			output.writeInt(MAGIC);
+		}
+		try (FileChannel channel = FileChannel.open(writtenPath, StandardOpenOption.WRITE)) {
+			channel.force(true);
+		}
+		Files.move(writtenPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	public long size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return (size == 0);
+	}
+
+	public boolean containsKey(K key) {
+		int offset = seek(key, true);
+		return (offset < indexOffset) && (compare(key, keyAt(offset)) == 0);
+	}
+
+	public V get(K key) {
+		int offset = seek(key, true);
+		return ((offset < indexOffset) && (compare(key, keyAt(offset)) == 0)) ? valueAt(offset) : null;
+	}
+
+	public ByteBuffer getBuffer(K key) {
+		int offset = seek(key, true);
+		return ((offset < indexOffset) && (compare(key, keyAt(offset)) == 0)) ? valueBufferAt(offset) : null;
+	}
+
+	public Map.Entry<K, V> ceilingEntry(K key) {
+		return entryAt(seek(key, true));
+	}
+
+	public Map.Entry<K, V> higherEntry(K key) {
+		return entryAt(seek(key, false));
+	}
+
+	public Map.Entry<K, V> firstEntry() {
+		return entryAt(0);
+	}
+
+	public Iterator<Map.Entry<K, V>> iterator() {
+		return new TableIterator(0, null, false);
+	}
+
+	public Iterator<Map.Entry<K, V>> iterator(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+		if ((fromKey == null) || (toKey == null)) {
+			throw new NullPointerException();
+		}
+		if (compare(fromKey, toKey) > 0) {
+			throw new IllegalArgumentException();
+		}
+		return new TableIterator(seek(fromKey, fromInclusive), toKey, toInclusive);
+	}
+
+	public ConcurrentSkipListMap<K, V> toMap() {
+		if (valueCodec == null) {
+			throw new UnsupportedOperationException();
+		}
+		return new ConcurrentSkipListMap<>(comparator, iterator(), null);
+	}
+
+	public ConcurrentSkipListSet<K> toSet() {
+		Iterator<Map.Entry<K, V>> iterator = iterator();
+		return new ConcurrentSkipListSet<>(comparator, new Iterator<K>() {
+
+			@Override
+			public boolean hasNext() {
+				return iterator.hasNext();
+			}
+
+			@Override
+			public K next() {
+				return iterator.next().getKey();
+			}
+
+		});
+	}
+
+	private int seek(K key, boolean inclusive) {
+		if (key == null) {
+			throw new NullPointerException();
+		}
+		int low = 0;
+		int high = blocks.length - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int comparison = compare(keyAt(blocks[middle]), key);
+			if ((comparison < 0) || ((comparison == 0) && !inclusive)) {
+				low = middle + 1;
+			} else {
+				high = middle - 1;
+			}
+		}
+		if (high < 0) {
+			return 0;
+		}
+		int offset = blocks[high];
+		while (offset < indexOffset) {
+			int comparison = compare(keyAt(offset), key);
+			if ((comparison > 0) || ((comparison == 0) && inclusive)) {
+				break;
+			}
+			offset = nextOffset(offset);
+		}
+		return offset;
+	}
+
+	@SuppressWarnings("unchecked")
+	private int compare(K key1, K key2) {
+		return (comparator == null) ? ((Comparable<? super K>) key1).compareTo(key2) : comparator.compare(key1, key2);
+	}
+
+	private int nextOffset(int offset) {
+		return offset + RECORD_HEADER_SIZE + buffer.getInt(offset) + buffer.getInt(offset + Integer.BYTES);
+	}
+
+	private K keyAt(int offset) {
+		return keyCodec.decode(slice(offset + RECORD_HEADER_SIZE, buffer.getInt(offset)));
+	}
+
+	private V valueAt(int offset) {
+		return (valueCodec == null) ? null : valueCodec.decode(valueBufferAt(offset));
+	}
+
+	private ByteBuffer valueBufferAt(int offset) {
+		return slice(offset + RECORD_HEADER_SIZE + buffer.getInt(offset), buffer.getInt(offset + Integer.BYTES));
+	}
+
+	private Map.Entry<K, V> entryAt(int offset) {
+		return (offset < indexOffset) ? new AbstractMap.SimpleImmutableEntry<>(keyAt(offset), valueAt(offset)) : null;
+	}
+
+	private ByteBuffer slice(int offset, int length) {
+		ByteBuffer slice = buffer.duplicate();
+		slice.limit(offset + length);
+		slice.position(offset);
+		return slice.slice();
+	}
+
+	private class TableIterator implements Iterator<Map.Entry<K, V>> {
+
+		private int offset;
+		private final K toKey;
+		private final boolean toInclusive;
+		private Map.Entry<K, V> entry;
+
+		public TableIterator(int offset, K toKey, boolean toInclusive) {
+			this.offset = offset;
+			this.toKey = toKey;
+			this.toInclusive = toInclusive;
+		}
+
+		@Override
+		public boolean hasNext() {
+			if ((entry == null) && (offset < indexOffset)) {
+				entry = entryAt(offset);
+				if (toKey != null) {
+					int comparison = compare(entry.getKey(), toKey);
+					if ((comparison > 0) || ((comparison == 0) && !toInclusive)) {
+						offset = indexOffset;
+						entry = null;
+						return false;
+					}
+				}
+				offset = nextOffset(offset);
+			}
+			return (entry != null);
+		}
+
+		@Override
+		public Map.Entry<K, V> next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			Map.Entry<K, V> next = entry;
+			entry = null;
+			return next;
+		}
+
+	}
+
+}
@@ -0,0 +1,38 @@
+package ua.shevchuk.concurrent;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+final class SpinWait {
+
+	private static final MethodHandle ON_SPIN_WAIT = onSpinWait();
+
+	private static volatile int delay;
+
+	private SpinWait() {
+	}
+
+	static void spin(int iterations) {
+		if (ON_SPIN_WAIT == null) {
+			for (int iteration = 0; iteration < iterations; iteration += 1 + delay);
+			return;
+		}
+		for (int iteration = 0; iteration < iterations; iteration++) {
+			try {
+				ON_SPIN_WAIT.invokeExact();
+			} catch (Throwable e) {
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+
+	private static MethodHandle onSpinWait() {
+		try {
+			return MethodHandles.publicLookup().findStatic(Thread.class, "onSpinWait", MethodType.methodType(void.class));
+		} catch (ReflectiveOperationException e) {
+			return null;
+		}
+	}
+
+}
@@ -0,0 +1,211 @@
+package ua.shevchuk.concurrent;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+public class WriteAheadLog<K, V> implements Closeable {
+
+	private static final byte REMOVE = 0;
+	private static final byte PUT = 1;
+	private static final int HEADER_SIZE = 2 * Integer.BYTES;
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private final Path path;
+	private final Codec<K> keyCodec;
+	private final Codec<V> valueCodec;
+	private final Object syncLock;
+	private final AtomicLong sequence;
+
+	private FileChannel channel;
+	private ByteBuffer buffer;
+	private ByteBuffer syncBuffer;
+	private long appendedPosition;
+	private volatile long syncedPosition;
+
+	public WriteAheadLog(Path path, Codec<K> keyCodec, Codec<V> valueCodec) {
+		if ((path == null) || (keyCodec == null) || (valueCodec == null)) {
+			throw new NullPointerException();
+		}
+		this.path = path;
+		this.keyCodec = keyCodec;
+		this.valueCodec = valueCodec;
+		syncLock = new Object();
+		sequence = new AtomicLong();
+		buffer = ByteBuffer.allocate(BUFFER_SIZE);
+		syncBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+	}
+
+	public ConcurrentSkipListMap<K, V> recover(Comparator<? super K> comparator) throws IOException {
+		synchronized (syncLock) {
+			synchronized (this) {
+				if (channel != null) {
+					throw new IllegalStateException();
+				}
+				TreeMap<K, V> map = new TreeMap<>(comparator);
+				if (Files.exists(path)) {
+					replay(map, new TreeMap<>(comparator));
+				}
+				Path compactedPath = path.resolveSibling(path.getFileName() + ".compact");
+				try (FileChannel compactedChannel = FileChannel.open(compactedPath, StandardOpenOption.CREATE
+						, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+					channel = compactedChannel;
+					for (Map.Entry<K, V> entry : map.entrySet()) {
+						append(sequence.get(), entry.getKey(), entry.getValue());
+					}
+					flush();
+					sequence.incrementAndGet();
+				} finally {
+					channel = null;
+				}
+				Files.move(compactedPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+				channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+				return new ConcurrentSkipListMap<>(map, this);
+			}
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		synchronized (syncLock) {
+			synchronized (this) {
+				if (channel != null) {
+					flush();
+					channel.close();
+				}
+			}
+		}
+	}
+
+	Consumer<Boolean> reserve(K key, V value) {
+		long recordSequence = sequence.getAndIncrement();
+		return changed -> {
+			if (changed) {
+				append(recordSequence, key, value);
+			}
+		};
+	}
+
+	synchronized long position() {
+		return appendedPosition;
+	}
+
+	private long append(long recordSequence, K key, V value) {
+		byte[] keyBytes = keyCodec.encode(key);
+		byte[] valueBytes = (value == null) ? new byte[0] : valueCodec.encode(value);
+		int length = 1 + Long.BYTES + Integer.BYTES + keyBytes.length + valueBytes.length;
+		ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + length);
+		record.putInt(length).putInt(0);
+		record.put((value == null) ? REMOVE : PUT).putLong(recordSequence).putInt(keyBytes.length).put(keyBytes).put(valueBytes);
+		CRC32 crc = new CRC32();
+		crc.update(record.array(), HEADER_SIZE, length);
+		record.putInt(Integer.BYTES, (int) crc.getValue());
+		record.flip();
+		synchronized (this) {
+			if (buffer.remaining() < record.remaining()) {
+				ByteBuffer grownBuffer = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + record.remaining()));
+				buffer.flip();
+				buffer = grownBuffer.put(buffer);
+			}
+			buffer.put(record);
+			return (appendedPosition += HEADER_SIZE + length);
+		}
+	}
+
+	void commit(long position) {
+		if (syncedPosition >= position) {
+			return;
+		}
+		synchronized (syncLock) {
+			if (syncedPosition >= position) {
+				return;
+			}
+			try {
+				flush();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	private void flush() throws IOException {
+		long position;
+		synchronized (this) {
+			ByteBuffer pendingBuffer = buffer;
+			buffer = syncBuffer;
+			syncBuffer = pendingBuffer;
+			position = appendedPosition;
+		}
+		syncBuffer.flip();
+		while (syncBuffer.hasRemaining()) {
+			channel.write(syncBuffer);
+		}
+		syncBuffer.clear();
+		channel.force(false);
+		syncedPosition = position;
+	}
+
+	private void replay(Map<K, V> map, Map<K, Long> sequences) throws IOException {
+		try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+			CRC32 crc = new CRC32();
+			long remaining = Files.size(path);
+			while (true) {
+				byte[] record;
+				try {
+					int length = input.readInt();
+					int checksum = input.readInt();
+					remaining -= HEADER_SIZE;
+					if ((length <= 1 + Long.BYTES + Integer.BYTES) || (length > remaining)) {
+						return;
+					}
+					remaining -= length;
+					record = new byte[length];
+					input.readFully(record);
+					crc.reset();
+					crc.update(record, 0, length);
+					if ((int) crc.getValue() != checksum) {
+						return;
+					}
+				} catch (EOFException e) {
+					return;
+				}
+				ByteBuffer recordBuffer = ByteBuffer.wrap(record);
+				byte operation = recordBuffer.get();
+				long recordSequence = recordBuffer.getLong();
+				int keyLength = recordBuffer.getInt();
+				int keyOffset = 1 + Long.BYTES + Integer.BYTES;
+				int valueOffset = keyOffset + keyLength;
+				K key = keyCodec.decode(ByteBuffer.wrap(record, keyOffset, keyLength).slice());
+				Long lastSequence = sequences.get(key);
+				if ((lastSequence != null) && (lastSequence > recordSequence)) {
+					continue;
+				}
+				sequences.put(key, recordSequence);
+				if (sequence.get() <= recordSequence) {
+					sequence.set(recordSequence + 1);
+				}
+				if (operation == PUT) {
+					map.put(key, valueCodec.decode(ByteBuffer.wrap(record, valueOffset, record.length - valueOffset).slice()));
+				} else {
+					map.remove(key);
+				}
+			}
+		}
+	}
+
+}